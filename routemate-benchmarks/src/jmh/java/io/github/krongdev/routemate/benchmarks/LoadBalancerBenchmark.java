@@ -0,0 +1,72 @@
+package io.github.krongdev.routemate.benchmarks;
+
+import io.github.krongdev.routemate.core.balancer.LoadBalancer;
+import io.github.krongdev.routemate.core.balancer.RandomLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.WeightedRoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one replica selection. With {@code unhealthy=true} every fourth
+ * replica is excluded, as the router does before calling the balancer.
+ * Run with {@code -PjmhThreads=N} to measure contention on shared state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoadBalancerBenchmark {
+
+    @Param({ "round-robin", "random", "weighted-round-robin" })
+    public String strategy;
+
+    @Param({ "2", "8", "32" })
+    public int replicas;
+
+    @Param({ "false", "true" })
+    public boolean unhealthy;
+
+    private LoadBalancer loadBalancer;
+    private ReplicaView view;
+    private List<String> list;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loadBalancer = switch (strategy) {
+            case "random" -> new RandomLoadBalancer();
+            case "weighted-round-robin" -> new WeightedRoundRobinLoadBalancer(Replicas.weights(replicas));
+            default -> new RoundRobinLoadBalancer();
+        };
+
+        DataSourceRouter router = new DataSourceRouter(new StubDataSource(), loadBalancer);
+        router.setReadDataSources(Replicas.dataSources(replicas));
+        router.updateWeights(Replicas.weights(replicas));
+        if (unhealthy) {
+            Replicas.markQuarterUnhealthy(router, replicas);
+        }
+        view = router.getHealthyReplicas();
+        list = view.asList();
+    }
+
+    @Benchmark
+    public String selectFromView() {
+        return loadBalancer.selectFrom(view);
+    }
+
+    @Benchmark
+    public String selectFromList() {
+        return loadBalancer.select(list);
+    }
+}
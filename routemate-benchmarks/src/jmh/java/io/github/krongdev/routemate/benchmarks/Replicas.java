@@ -0,0 +1,46 @@
+package io.github.krongdev.routemate.benchmarks;
+
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class Replicas {
+
+    private Replicas() {
+    }
+
+    static String key(int index) {
+        return "read" + index;
+    }
+
+    static Map<String, DataSource> dataSources(int count) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            dataSources.put(key(i), new StubDataSource());
+        }
+        return dataSources;
+    }
+
+    /**
+     * Distinct weights 1..4 so weighted strategies do real work.
+     */
+    static Map<String, Integer> weights(int count) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            weights.put(key(i), 1 + i % 4);
+        }
+        return weights;
+    }
+
+    /**
+     * Marks every fourth replica unhealthy.
+     */
+    static void markQuarterUnhealthy(DataSourceRouter router, int count) {
+        for (int i = 0; i < count; i += 4) {
+            router.markUnhealthy(key(i));
+        }
+    }
+}
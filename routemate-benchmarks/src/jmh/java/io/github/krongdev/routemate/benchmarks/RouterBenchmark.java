@@ -0,0 +1,87 @@
+package io.github.krongdev.routemate.benchmarks;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving the lookup key and of a full {@code getConnection()}
+ * through the router, for READ and WRITE routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouterBenchmark {
+
+    @Param({ "2", "8", "32" })
+    public int replicas;
+
+    @Param({ "false", "true" })
+    public boolean unhealthy;
+
+    private BenchmarkRouter router;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        router = new BenchmarkRouter();
+        router.setReadDataSources(Replicas.dataSources(replicas));
+        if (unhealthy) {
+            Replicas.markQuarterUnhealthy(router, replicas);
+        }
+    }
+
+    /**
+     * Routing context of the benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ReadContext {
+        @Setup(Level.Trial)
+        public void enter() {
+            RoutingContext.set(RoutingContext.READ);
+        }
+
+        @TearDown(Level.Trial)
+        public void exit() {
+            RoutingContext.clear();
+        }
+    }
+
+    @Benchmark
+    public Object lookupKeyRead(ReadContext context) {
+        return router.lookupKey();
+    }
+
+    @Benchmark
+    public Object lookupKeyWrite() {
+        return router.lookupKey();
+    }
+
+    @Benchmark
+    public Connection getConnectionRead(ReadContext context) throws SQLException {
+        return router.getConnection();
+    }
+
+    static final class BenchmarkRouter extends DataSourceRouter {
+        BenchmarkRouter() {
+            super(new StubDataSource(), new RoundRobinLoadBalancer());
+        }
+
+        Object lookupKey() {
+            return determineCurrentLookupKey();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.krongdev.routemate.benchmarks;
+
+import io.github.krongdev.routemate.core.aop.RoutingAspect;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a call through {@link RoutingAspect} compared with a call through
+ * a proxy without it, for read-only and read-write methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutingAspectBenchmark {
+
+    private Repository routed;
+    private Repository plain;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Class-based proxies, as Spring Boot creates by default
+        AspectJProxyFactory factory = new AspectJProxyFactory(new DefaultRepository());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RoutingAspect());
+        routed = factory.getProxy();
+
+        AspectJProxyFactory plainFactory = new AspectJProxyFactory(new DefaultRepository());
+        plainFactory.setProxyTargetClass(true);
+        plain = plainFactory.getProxy();
+    }
+
+    @Benchmark
+    public String readOnly() {
+        return routed.find();
+    }
+
+    @Benchmark
+    public String readWrite() {
+        return routed.save();
+    }
+
+    @Benchmark
+    public String baseline() {
+        return plain.find();
+    }
+
+    public interface Repository {
+        String find();
+
+        String save();
+    }
+
+    public static class DefaultRepository implements Repository {
+        @Override
+        @Transactional(readOnly = true)
+        public String find() {
+            return RoutingContext.get();
+        }
+
+        @Override
+        @Transactional
+        public String save() {
+            return RoutingContext.get();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.krongdev.routemate.benchmarks;
+
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of entering and leaving a routing scope, as done once per transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutingContextBenchmark {
+
+    private static final Duration STALENESS = Duration.ofSeconds(5);
+
+    @Benchmark
+    public String setGetClear() {
+        RoutingContext.set(RoutingContext.READ);
+        String key = RoutingContext.get();
+        RoutingContext.clear();
+        return key;
+    }
+
+    @Benchmark
+    public String setGetClearWithStaleness() {
+        RoutingContext.set(RoutingContext.READ, STALENESS);
+        String key = RoutingContext.get();
+        RoutingContext.clear();
+        return key;
+    }
+
+    @Benchmark
+    public String nestedSetGetClear() {
+        RoutingContext.set(RoutingContext.WRITE);
+        RoutingContext.set(RoutingContext.READ);
+        String key = RoutingContext.get();
+        RoutingContext.clear();
+        RoutingContext.clear();
+        return key;
+    }
+
+    @Benchmark
+    public String use() {
+        try (RoutingContext.ContextToken ignored = RoutingContext.use(RoutingContext.READ)) {
+            return RoutingContext.get();
+        }
+    }
+}
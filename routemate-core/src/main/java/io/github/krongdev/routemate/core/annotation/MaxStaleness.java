@@ -0,0 +1,29 @@
+package io.github.krongdev.routemate.core.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the maximum replication lag tolerated by a read-only transaction.
+ * <p>
+ * Place it next to {@code @Transactional(readOnly = true)}. A bound larger than
+ * the router's lag limit lets latency-tolerant reads keep using lagging
+ * replicas; a smaller bound restricts critical reads to fresher replicas and
+ * falls back to WRITE when none qualify.
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MaxStaleness {
+
+    /**
+     * @return the maximum tolerated lag, in {@link #unit()}
+     */
+    long value();
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+}
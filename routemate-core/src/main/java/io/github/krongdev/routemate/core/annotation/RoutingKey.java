@@ -0,0 +1,22 @@
+package io.github.krongdev.routemate.core.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter of a {@code @Transactional(readOnly = true)} method
+ * whose value is used as the affinity key for replica selection.
+ * <p>
+ * With the consistent-hash load balancer, reads for the same key (e.g. a
+ * tenant or customer id) are sent to the same replica, so its caches stay
+ * warm for that key. Other load balancers ignore it. A null argument routes
+ * like a method without the annotation.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RoutingKey {
+}
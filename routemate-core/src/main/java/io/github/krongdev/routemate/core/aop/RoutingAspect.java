@@ -1,28 +1,59 @@
 package io.github.krongdev.routemate.core.aop;
 
+import io.github.krongdev.routemate.core.annotation.MaxStaleness;
+import io.github.krongdev.routemate.core.annotation.RoutingKey;
 import io.github.krongdev.routemate.core.routing.RoutingContext;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ClassUtils;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class RoutingAspect {
 
-    @Around("@annotation(org.springframework.transaction.annotation.Transactional) || @within(org.springframework.transaction.annotation.Transactional)")
+    // Routing decisions resolved once per (method, target class)
+    private final Map<MethodClassKey, RoutingDecision> decisions = new ConcurrentHashMap<>(256);
+
+    // Static execution() pointcuts: @within needs a runtime match on every call
+    @Around("execution(@org.springframework.transaction.annotation.Transactional * *(..)) || execution(* (@org.springframework.transaction.annotation.Transactional *).*(..))")
     public Object proceed(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RoutingDecision decision = decisionFor(method, joinPoint.getTarget().getClass());
+
+        boolean readOnly = decision.readOnly;
+        Object affinityKey = readOnly && decision.routingKeyIndex >= 0
+                ? joinPoint.getArgs()[decision.routingKeyIndex]
+                : null;
+        // Bound to a ScopedValue where available; the level ends with the call.
+        // Writes are recorded on commit by RoutingTransactionListener: a joined
+        // inner method returns before the outer transaction commits.
+        return RoutingContext.callWith(readOnly ? RoutingContext.READ : RoutingContext.WRITE,
+                decision.maxStaleness, affinityKey, joinPoint::proceed);
+    }
+
+    private RoutingDecision decisionFor(Method method, Class<?> targetClass) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        RoutingDecision decision = decisions.get(key);
+        if (decision == null) {
+            decision = decisions.computeIfAbsent(key, k -> resolve(method, targetClass));
+        }
+        return decision;
+    }
 
+    private static RoutingDecision resolve(Method method, Class<?> targetClass) {
         Method specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass);
         Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Transactional.class);
 
@@ -31,15 +62,63 @@ public class RoutingAspect {
                     Transactional.class);
         }
 
-        try {
-            if (transactional != null && transactional.readOnly()) {
-                RoutingContext.set(RoutingContext.READ);
-            } else {
-                RoutingContext.set(RoutingContext.WRITE);
+        if (transactional == null || !transactional.readOnly()) {
+            return RoutingDecision.WRITE;
+        }
+        Duration maxStaleness = resolveMaxStaleness(specificMethod);
+        int routingKeyIndex = resolveRoutingKeyIndex(specificMethod);
+        if (routingKeyIndex < 0 && specificMethod != method) {
+            // Parameter annotations are not inherited from the interface
+            routingKeyIndex = resolveRoutingKeyIndex(method);
+        }
+        if (maxStaleness == null && routingKeyIndex < 0) {
+            return RoutingDecision.READ;
+        }
+        return new RoutingDecision(true, maxStaleness, routingKeyIndex);
+    }
+
+    /**
+     * Returns the index of the {@link RoutingKey} parameter, or -1 if there is none.
+     */
+    private static int resolveRoutingKeyIndex(Method specificMethod) {
+        Annotation[][] parameterAnnotations = specificMethod.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof RoutingKey) {
+                    return i;
+                }
             }
-            return joinPoint.proceed();
-        } finally {
-            RoutingContext.clear();
+        }
+        return -1;
+    }
+
+    private static Duration resolveMaxStaleness(Method specificMethod) {
+        MaxStaleness maxStaleness = AnnotatedElementUtils.findMergedAnnotation(specificMethod, MaxStaleness.class);
+        if (maxStaleness == null) {
+            maxStaleness = AnnotatedElementUtils.findMergedAnnotation(specificMethod.getDeclaringClass(),
+                    MaxStaleness.class);
+        }
+        if (maxStaleness == null) {
+            return null;
+        }
+        return Duration.ofMillis(maxStaleness.unit().toMillis(maxStaleness.value()));
+    }
+
+    /**
+     * How calls to one advised method are routed.
+     */
+    private static final class RoutingDecision {
+        private static final RoutingDecision READ = new RoutingDecision(true, null, -1);
+        private static final RoutingDecision WRITE = new RoutingDecision(false, null, -1);
+
+        private final boolean readOnly;
+        private final Duration maxStaleness;
+        private final int routingKeyIndex;
+
+        private RoutingDecision(boolean readOnly, Duration maxStaleness, int routingKeyIndex) {
+            this.readOnly = readOnly;
+            this.maxStaleness = maxStaleness;
+            this.routingKeyIndex = routingKeyIndex;
         }
     }
 }
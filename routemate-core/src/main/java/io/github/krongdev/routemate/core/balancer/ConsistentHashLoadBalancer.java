@@ -0,0 +1,196 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Consistent-hash Load Balancer for replica cache locality.
+ * <p>
+ * Each replica owns {@code virtualNodes * weight} points on a 64-bit hash
+ * ring, and a read with an affinity key goes to the owner of the first point
+ * at or after the key's hash. Reads for the same key therefore keep hitting
+ * the same replica and its warm buffer pool. Point positions only depend on
+ * the replica key, so when a replica is added, removed or marked unhealthy,
+ * only the keys owned by that replica move.
+ * <p>
+ * The ring is built for the healthy {@link ReplicaView} and rebuilt only when
+ * the healthy set or the weights change. Reads without an affinity key pick a
+ * random point, which spreads them by weight.
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private volatile Map<String, Integer> weights = Collections.emptyMap();
+    private volatile Ring ring;
+
+    public ConsistentHashLoadBalancer() {
+        this(Collections.emptyMap());
+    }
+
+    public ConsistentHashLoadBalancer(Map<String, Integer> weights) {
+        this(weights, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param virtualNodes ring points per unit of weight; more points give a
+     *                     more even split at the cost of a larger ring
+     */
+    public ConsistentHashLoadBalancer(Map<String, Integer> weights, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1");
+        }
+        this.virtualNodes = virtualNodes;
+        updateWeights(weights);
+    }
+
+    @Override
+    public void updateWeights(Map<String, Integer> weights) {
+        this.weights = weights != null ? new HashMap<>(weights) : Collections.emptyMap();
+        this.ring = null; // rebuilt on next selection
+    }
+
+    @Override
+    public boolean usesWeights() {
+        return true;
+    }
+
+    @Override
+    public String select(List<String> healthyKeys) {
+        if (healthyKeys == null || healthyKeys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(healthyKeys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+        return replicas.get(ringFor(replicas).owner(ThreadLocalRandom.current().nextLong()));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas, Object affinityKey) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+        return replicas.get(ringFor(replicas).owner(hash(affinityKey)));
+    }
+
+    private Ring ringFor(ReplicaView replicas) {
+        Ring current = this.ring;
+        if (current == null || !current.view.sameAs(replicas)) {
+            current = new Ring(replicas, weights, virtualNodes);
+            this.ring = current;
+        }
+        return current;
+    }
+
+    /**
+     * Hashes an affinity key independently of JVM identity hash codes, so the
+     * same key maps to the same replica on every application instance.
+     */
+    static long hash(Object key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return mix(((Number) key).longValue());
+        }
+        return mix(fnv1a(key instanceof CharSequence chars ? chars : String.valueOf(key)));
+    }
+
+    private static long fnv1a(CharSequence chars) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < chars.length(); i++) {
+            hash ^= chars.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * MurmurHash3 finalizer: spreads nearby inputs over the whole ring.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Ring {
+        private final ReplicaView view;
+        private final long[] points; // sorted
+        private final int[] owners; // view index owning points[i]
+
+        private Ring(ReplicaView view, Map<String, Integer> configured, int virtualNodes) {
+            this.view = view;
+            int n = view.size();
+            int total = 0;
+            int[] counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                counts[i] = virtualNodes * view.weight(i, configured);
+                total += counts[i];
+            }
+
+            long[] entries = new long[total];
+            int[] entryOwners = new int[total];
+            int next = 0;
+            for (int i = 0; i < n; i++) {
+                long seed = fnv1a(view.get(i));
+                for (int v = 0; v < counts[i]; v++) {
+                    entries[next] = mix(seed + v * 0x9e3779b97f4a7c15L);
+                    entryOwners[next] = i;
+                    next++;
+                }
+            }
+
+            // Sort points, carrying their owners along
+            Integer[] order = new Integer[total];
+            for (int i = 0; i < total; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byPoint = Long.compare(entries[a], entries[b]);
+                // Ties are resolved by key so the owner does not depend on view order
+                return byPoint != 0 ? byPoint : view.get(entryOwners[a]).compareTo(view.get(entryOwners[b]));
+            });
+            this.points = new long[total];
+            this.owners = new int[total];
+            for (int i = 0; i < total; i++) {
+                points[i] = entries[order[i]];
+                owners[i] = entryOwners[order[i]];
+            }
+        }
+
+        /**
+         * Returns the view index owning the first point at or after the hash,
+         * wrapping around to the first point.
+         */
+        private int owner(long hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+                if (index == points.length) {
+                    index = 0;
+                }
+            }
+            return owners[index];
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-flight connection counter for a single replica.
+ * <p>
+ * Backed by a {@link LongAdder}, so concurrent borrows and returns on the same
+ * replica update separate cells instead of contending on one cache line.
+ */
+final class InFlightCounter {
+
+    private final LongAdder count = new LongAdder();
+
+    void increment() {
+        count.increment();
+    }
+
+    void decrement() {
+        count.decrement();
+    }
+
+    int get() {
+        long value = count.sum();
+        return value <= 0 ? 0 : (int) Math.min(value, Integer.MAX_VALUE);
+    }
+}
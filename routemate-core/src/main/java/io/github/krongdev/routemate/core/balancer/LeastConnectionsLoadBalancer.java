@@ -0,0 +1,161 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Least-Outstanding-Requests Load Balancer.
+ * Picks the replica with the fewest active plus pending connections.
+ * <p>
+ * For HikariCP pools the load is read from {@link HikariPoolMXBean} by a
+ * background sampler, so {@link #select} only reads cached values. For other
+ * DataSources the balancer counts in-flight connections itself, using the
+ * acquire/release events reported by the router.
+ */
+public class LeastConnectionsLoadBalancer implements LoadBalancer, RoutingListener, AutoCloseable {
+
+    public static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofMillis(100);
+
+    private final Map<String, ReplicaLoad> loads = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sampler;
+
+    public LeastConnectionsLoadBalancer() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    public LeastConnectionsLoadBalancer(Duration sampleInterval) {
+        long intervalMillis = Math.max(1, sampleInterval.toMillis());
+        this.sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "routemate-pool-stats-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sampler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String select(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(keys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        // Random start so ties do not always favour the first replica
+        int start = ThreadLocalRandom.current().nextInt(size);
+        String best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            String candidate = replicas.get((start + i) % size);
+            ReplicaLoad load = loads.get(candidate);
+            int current = load != null ? load.current() : 0;
+            if (current < bestLoad) {
+                best = candidate;
+                bestLoad = current;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the load last observed for the given key: active plus pending
+     * connections, or -1 if the key is unknown.
+     */
+    public int getLoad(String key) {
+        ReplicaLoad load = loads.get(key);
+        return load != null ? load.current() : -1;
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        Map<String, DataSource> dataSources = table.getReadDataSources();
+        loads.keySet().retainAll(dataSources.keySet());
+        dataSources.forEach((key, ds) -> {
+            HikariDataSource hikari = ds instanceof HikariDataSource h ? h : null;
+            ReplicaLoad load = loads.get(key);
+            if (load == null || load.hikari != hikari) {
+                loads.put(key, new ReplicaLoad(hikari));
+            }
+        });
+    }
+
+    @Override
+    public void connectionAcquired(String key, long acquireNanos) {
+        ReplicaLoad load = loads.get(key);
+        if (load != null) {
+            load.inFlight.increment();
+        }
+    }
+
+    @Override
+    public void connectionReleased(String key, long heldNanos) {
+        ReplicaLoad load = loads.get(key);
+        if (load != null) {
+            load.inFlight.decrement();
+        }
+    }
+
+    @Override
+    public boolean observesWriteConnections() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    private void sample() {
+        for (ReplicaLoad load : loads.values()) {
+            load.sample();
+        }
+    }
+
+    private static final class ReplicaLoad {
+        private final HikariDataSource hikari;
+        private final InFlightCounter inFlight = new InFlightCounter();
+        private volatile int poolLoad;
+
+        private ReplicaLoad(HikariDataSource hikari) {
+            this.hikari = hikari;
+        }
+
+        private void sample() {
+            if (hikari == null || hikari.isClosed()) {
+                return;
+            }
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                poolLoad = pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+            }
+        }
+
+        private int current() {
+            // Router-observed borrows count immediately; the pool sample adds
+            // waiters and connections borrowed outside the router.
+            return Math.max(poolLoad, inFlight.get());
+        }
+    }
+}
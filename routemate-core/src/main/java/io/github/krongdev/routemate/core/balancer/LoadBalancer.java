@@ -12,6 +12,32 @@ public interface LoadBalancer {
      */
     String select(List<String> keys);
 
+    /**
+     * Select a data source key from an immutable, index-based view of healthy
+     * candidates. The router calls this on every read, so implementations should
+     * avoid allocating here.
+     *
+     * @param replicas View of available healthy Read Replica keys.
+     * @return Selected key, or null if the view is empty.
+     */
+    default String selectFrom(ReplicaView replicas) {
+        return select(replicas.asList());
+    }
+
+    /**
+     * Select a data source key for a read that carries an affinity key, e.g. a
+     * customer id set through {@code RoutingContext.use(READ, customerId)}.
+     * Balancers that keep keys on the same replica override this; the default
+     * ignores the affinity key.
+     *
+     * @param replicas    View of available healthy Read Replica keys.
+     * @param affinityKey Key whose reads should land on the same replica, never null.
+     * @return Selected key, or null if the view is empty.
+     */
+    default String selectFrom(ReplicaView replicas, Object affinityKey) {
+        return selectFrom(replicas);
+    }
+
     /**
      * Update the weights configuration for the load balancer.
      * 
@@ -20,4 +46,12 @@ public interface LoadBalancer {
     default void updateWeights(Map<String, Integer> weights) {
         // Default no-op
     }
+
+    /**
+     * True if this balancer spreads reads by weight. The router uses it to
+     * size a warming replica's share of reads during slow start.
+     */
+    default boolean usesWeights() {
+        return false;
+    }
 }
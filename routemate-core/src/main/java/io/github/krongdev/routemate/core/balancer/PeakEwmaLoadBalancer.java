@@ -0,0 +1,189 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency-aware Load Balancer based on a peak-sensitive EWMA.
+ * <p>
+ * For every replica it tracks an exponentially weighted moving average of the
+ * connection-acquire latency and of the time each connection is held (the
+ * transaction latency), as recorded by the router. A slower sample replaces the
+ * average right away (the "peak"); faster samples pull it down gradually.
+ * <p>
+ * The expected cost of a replica is {@code (acquire + hold) * (inFlight + 1)};
+ * the cheapest healthy replica wins. A replica without samples is assumed to
+ * take a default latency, and the hold average decays back towards it while a
+ * replica receives no traffic. A replica that was slow therefore gets retried
+ * eventually, while an unsampled or idle one is still ranked by its in-flight
+ * connections instead of looking free.
+ */
+public class PeakEwmaLoadBalancer implements LoadBalancer, RoutingListener {
+
+    public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_LATENCY = Duration.ofMillis(10);
+
+    private final Map<String, ReplicaLatency> latencies = new ConcurrentHashMap<>();
+    private final double decayNanos;
+    private final double defaultLatencyNanos;
+
+    public PeakEwmaLoadBalancer() {
+        this(DEFAULT_DECAY_TIME);
+    }
+
+    /**
+     * @param decayTime time constant of the moving average; larger values react
+     *                  more slowly to latency improvements.
+     */
+    public PeakEwmaLoadBalancer(Duration decayTime) {
+        this(decayTime, DEFAULT_LATENCY);
+    }
+
+    /**
+     * @param decayTime      time constant of the moving average; larger values react
+     *                       more slowly to latency improvements.
+     * @param defaultLatency latency assumed for a replica before its first sample
+     *                       and approached again while it is idle.
+     */
+    public PeakEwmaLoadBalancer(Duration decayTime, Duration defaultLatency) {
+        this.decayNanos = Math.max(1, decayTime.toNanos());
+        this.defaultLatencyNanos = Math.max(1, defaultLatency.toNanos());
+    }
+
+    @Override
+    public String select(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(keys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        long now = System.nanoTime();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        String best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            String candidate = replicas.get((start + i) % size);
+            ReplicaLatency latency = latencies.get(candidate);
+            double cost = latency != null ? latency.cost(now, decayNanos) : defaultLatencyNanos;
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the current expected cost of the given key in nanoseconds, or -1 if
+     * the key is unknown.
+     */
+    public double getCost(String key) {
+        ReplicaLatency latency = latencies.get(key);
+        return latency != null ? latency.cost(System.nanoTime(), decayNanos) : -1;
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        latencies.keySet().retainAll(table.getReadDataSources().keySet());
+        for (String key : table.getReadDataSources().keySet()) {
+            latencies.computeIfAbsent(key, k -> new ReplicaLatency(defaultLatencyNanos));
+        }
+    }
+
+    @Override
+    public void connectionAcquired(String key, long acquireNanos) {
+        ReplicaLatency latency = latencies.get(key);
+        if (latency != null) {
+            latency.inFlight.increment();
+            latency.acquire.observe(acquireNanos, System.nanoTime(), decayNanos);
+        }
+    }
+
+    @Override
+    public void connectionReleased(String key, long heldNanos) {
+        ReplicaLatency latency = latencies.get(key);
+        if (latency != null) {
+            latency.inFlight.decrement();
+            latency.hold.observe(heldNanos, System.nanoTime(), decayNanos);
+        }
+    }
+
+    @Override
+    public boolean observesWriteConnections() {
+        return false;
+    }
+
+    private static final class ReplicaLatency {
+        private final PeakEwma acquire = new PeakEwma(0);
+        private final PeakEwma hold;
+        private final InFlightCounter inFlight = new InFlightCounter();
+
+        private ReplicaLatency(double defaultLatencyNanos) {
+            this.hold = new PeakEwma(defaultLatencyNanos);
+        }
+
+        private double cost(long now, double decayNanos) {
+            double latency = acquire.get(now, decayNanos) + hold.get(now, decayNanos);
+            return latency * (inFlight.get() + 1);
+        }
+    }
+
+    /**
+     * Lock-free peak EWMA that starts at, and decays back towards, a baseline.
+     * The first sample replaces the baseline outright.
+     * The value is kept as raw double bits so it can be updated with a CAS; the
+     * timestamp is advisory and may be slightly stale under contention.
+     */
+    private static final class PeakEwma {
+        private final double baseline;
+        private final AtomicLong valueBits;
+        private volatile long stamp = System.nanoTime();
+        private volatile boolean sampled;
+
+        private PeakEwma(double baseline) {
+            this.baseline = baseline;
+            this.valueBits = new AtomicLong(Double.doubleToRawLongBits(baseline));
+        }
+
+        private void observe(double sample, long now, double decayNanos) {
+            if (!sampled) {
+                valueBits.set(Double.doubleToRawLongBits(sample));
+                stamp = now;
+                sampled = true;
+                return;
+            }
+            double weight = Math.exp(-Math.max(0, now - stamp) / decayNanos);
+            long currentBits;
+            double next;
+            do {
+                currentBits = valueBits.get();
+                double current = Double.longBitsToDouble(currentBits);
+                next = sample > current ? sample : current * weight + sample * (1 - weight);
+            } while (!valueBits.compareAndSet(currentBits, Double.doubleToRawLongBits(next)));
+            stamp = now;
+        }
+
+        private double get(long now, double decayNanos) {
+            double value = Double.longBitsToDouble(valueBits.get());
+            return baseline + (value - baseline) * Math.exp(-Math.max(0, now - stamp) / decayNanos);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-Two-Choices Load Balancer.
+ * Samples two distinct healthy replicas at random and picks the one with fewer
+ * in-flight connections.
+ * <p>
+ * Selection is O(1) and shares no global counter: each replica has its own
+ * striped in-flight counter, updated by the router when connections are
+ * borrowed and returned.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements LoadBalancer, RoutingListener {
+
+    private final Map<String, InFlightCounter> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public String select(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(keys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        String a = replicas.get(first);
+        String b = replicas.get(second);
+        return getInFlight(b) < getInFlight(a) ? b : a;
+    }
+
+    /**
+     * Returns the number of connections currently borrowed from the given key.
+     */
+    public int getInFlight(String key) {
+        InFlightCounter counter = inFlight.get(key);
+        return counter != null ? counter.get() : 0;
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        inFlight.keySet().retainAll(table.getReadDataSources().keySet());
+        for (String key : table.getReadDataSources().keySet()) {
+            inFlight.computeIfAbsent(key, k -> new InFlightCounter());
+        }
+    }
+
+    @Override
+    public void connectionAcquired(String key, long acquireNanos) {
+        InFlightCounter counter = inFlight.get(key);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void connectionReleased(String key, long heldNanos) {
+        InFlightCounter counter = inFlight.get(key);
+        if (counter != null) {
+            counter.decrement();
+        }
+    }
+
+    @Override
+    public boolean observesWriteConnections() {
+        return false;
+    }
+}
@@ -18,4 +18,18 @@ public class RandomLoadBalancer implements LoadBalancer {
         int index = ThreadLocalRandom.current().nextInt(keys.size());
         return keys.get(index);
     }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        return replicas.get(ThreadLocalRandom.current().nextInt(size));
+    }
 }
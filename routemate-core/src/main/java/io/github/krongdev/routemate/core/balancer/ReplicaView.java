@@ -0,0 +1,146 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, index-based view of replica keys.
+ * Built once when membership or health changes and shared by every selection,
+ * so load balancers can pick a key without allocating or copying.
+ * <p>
+ * Views built by the router's routing table also carry the weights of that
+ * table, so a balancer always sees keys and weights from the same snapshot.
+ */
+public final class ReplicaView {
+
+    public static final ReplicaView EMPTY = new ReplicaView(new String[0], null);
+
+    private final String[] keys;
+    private final int[] weights; // null when the view carries no weights; 0 for unset entries
+    private final List<String> list;
+
+    private ReplicaView(String[] keys, int[] weights) {
+        this.keys = keys;
+        this.weights = weights;
+        this.list = Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public static ReplicaView of(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return EMPTY;
+        }
+        return new ReplicaView(keys.toArray(new String[0]), null);
+    }
+
+    /**
+     * Creates a view carrying the given weights. Non-positive weights count
+     * as 1; keys without an entry fall back to the balancer's own weights.
+     */
+    public static ReplicaView of(Collection<String> keys, Map<String, Integer> weights) {
+        if (keys == null || keys.isEmpty()) {
+            return EMPTY;
+        }
+        String[] array = keys.toArray(new String[0]);
+        int[] resolved = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            Integer weight = weights == null ? null : weights.get(array[i]);
+            resolved[i] = weight == null ? 0 : normalize(weight);
+        }
+        return new ReplicaView(array, resolved);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public String get(int index) {
+        return keys[index];
+    }
+
+    /**
+     * True if this view carries the weights of the routing table it came from.
+     */
+    public boolean hasWeights() {
+        return weights != null;
+    }
+
+    /**
+     * Returns the weight of the key at the given position: the one carried by
+     * this view, else the one in {@code fallback}, else 1.
+     *
+     * @param fallback weights to use when the view carries none for the key, may be null
+     */
+    public int weight(int index, Map<String, Integer> fallback) {
+        if (weights != null && weights[index] > 0) {
+            return weights[index];
+        }
+        return normalize(fallback == null ? null : fallback.get(keys[index]));
+    }
+
+    /**
+     * Returns a view of the given keys, which must be part of this view, in
+     * the given order and with the weights carried by this view.
+     */
+    public ReplicaView subset(Collection<String> subsetKeys) {
+        if (subsetKeys.size() == keys.length) {
+            return this;
+        }
+        if (subsetKeys.isEmpty()) {
+            return EMPTY;
+        }
+        String[] array = subsetKeys.toArray(new String[0]);
+        if (weights == null) {
+            return new ReplicaView(array, null);
+        }
+        int[] subsetWeights = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            int index = indexOf(array[i]);
+            subsetWeights[i] = index >= 0 ? weights[index] : 0;
+        }
+        return new ReplicaView(array, subsetWeights);
+    }
+
+    /**
+     * True if both views have the same keys in the same order and the same
+     * weights. Balancers use this to keep per-view state across table
+     * versions that did not change the candidates.
+     */
+    public boolean sameAs(ReplicaView other) {
+        return this == other || (Arrays.equals(keys, other.keys) && Arrays.equals(weights, other.weights));
+    }
+
+    /**
+     * Returns the position of the given key, or -1 if it is not part of this view.
+     */
+    public int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an unmodifiable list backed by this view. No copy is made.
+     */
+    public List<String> asList() {
+        return list;
+    }
+
+    private static int normalize(Integer weight) {
+        return weight == null || weight < 1 ? 1 : weight;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(keys);
+    }
+}
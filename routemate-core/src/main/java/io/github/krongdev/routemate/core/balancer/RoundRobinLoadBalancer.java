@@ -12,7 +12,19 @@ public class RoundRobinLoadBalancer implements LoadBalancer {
         if (keys == null || keys.isEmpty()) {
             return null;
         }
-        int size = keys.size();
+        return keys.get(nextIndex() % keys.size());
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        return replicas.get(nextIndex() % size);
+    }
+
+    private int nextIndex() {
         int idx = counter.getAndIncrement();
 
         if (idx > 1_000_000_000) {
@@ -23,7 +35,6 @@ public class RoundRobinLoadBalancer implements LoadBalancer {
         if (idx < 0) {
             idx = Math.abs(idx);
         }
-
-        return keys.get(idx % size);
+        return idx;
     }
 }
@@ -0,0 +1,132 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Smooth Weighted Round-Robin Load Balancer (nginx style).
+ * <p>
+ * Each replica keeps a running "current weight". On every pick the current
+ * weights of the candidates grow by their configured weight, the largest one
+ * wins and is reduced by the candidates' total. With A(5), B(1), C(1) this
+ * yields {@code A A B A C A A} instead of clumping the As together.
+ * <p>
+ * State is one int per replica of a candidate {@link ReplicaView}, so memory
+ * grows with the number of replicas, not with their weights. The state of the
+ * last few distinct views is kept, so callers that alternate between views
+ * (staleness bounds, read-your-writes, tiers) each continue their own sequence
+ * instead of restarting it. A view with the same keys and weights, e.g.
+ * rebuilt after a health flap, continues the existing one. All state is reset
+ * when the weights change.
+ */
+public class SmoothWeightedRoundRobinLoadBalancer implements LoadBalancer {
+
+    private static final int MAX_VIEWS = 8;
+
+    private volatile Map<String, Integer> weights = Collections.emptyMap();
+    // Most recently used first; guarded by lock
+    private final List<State> states = new ArrayList<>(MAX_VIEWS);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SmoothWeightedRoundRobinLoadBalancer(Map<String, Integer> weights) {
+        updateWeights(weights);
+    }
+
+    @Override
+    public void updateWeights(Map<String, Integer> weights) {
+        lock.lock();
+        try {
+            this.weights = weights != null ? new HashMap<>(weights) : Collections.emptyMap();
+            states.clear(); // rebuilt on next selection
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean usesWeights() {
+        return true;
+    }
+
+    @Override
+    public String select(List<String> healthyKeys) {
+        if (healthyKeys == null || healthyKeys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(healthyKeys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        Map<String, Integer> configured = this.weights;
+        lock.lock();
+        try {
+            return replicas.get(stateFor(replicas, configured).next());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must be called under the balancer lock
+    private State stateFor(ReplicaView replicas, Map<String, Integer> configured) {
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            if (state.view.sameAs(replicas)) {
+                if (i > 0) {
+                    states.remove(i);
+                    states.add(0, state);
+                }
+                return state;
+            }
+        }
+        if (states.size() == MAX_VIEWS) {
+            states.remove(MAX_VIEWS - 1);
+        }
+        State state = new State(replicas, configured);
+        states.add(0, state);
+        return state;
+    }
+
+    private static final class State {
+        private final ReplicaView view;
+        private final int[] weights;
+        private final int[] currentWeights;
+        private final int totalWeight;
+
+        private State(ReplicaView view, Map<String, Integer> configured) {
+            this.view = view;
+            this.weights = new int[view.size()];
+            this.currentWeights = new int[view.size()];
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = view.weight(i, configured);
+                total += weights[i];
+            }
+            this.totalWeight = total;
+        }
+
+        private int next() {
+            int best = 0;
+            for (int i = 0; i < weights.length; i++) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[best]) {
+                    best = i;
+                }
+            }
+            currentWeights[best] -= totalWeight;
+            return best;
+        }
+    }
+}
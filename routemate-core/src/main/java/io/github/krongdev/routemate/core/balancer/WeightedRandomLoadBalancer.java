@@ -0,0 +1,125 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted Random Load Balancer using Vose's alias method.
+ * <p>
+ * An immutable alias table is built for the healthy {@link ReplicaView}, with
+ * the weights it carries, and rebuilt only when the healthy set or the
+ * weights change. Each pick is a
+ * single {@link ThreadLocalRandom} draw and two array reads, with no shared
+ * mutable counter.
+ */
+public class WeightedRandomLoadBalancer implements LoadBalancer {
+
+    private volatile Map<String, Integer> weights = Collections.emptyMap();
+    private volatile AliasTable table;
+
+    public WeightedRandomLoadBalancer(Map<String, Integer> weights) {
+        updateWeights(weights);
+    }
+
+    @Override
+    public void updateWeights(Map<String, Integer> weights) {
+        this.weights = weights != null ? new HashMap<>(weights) : Collections.emptyMap();
+        this.table = null; // rebuilt on next selection
+    }
+
+    @Override
+    public boolean usesWeights() {
+        return true;
+    }
+
+    @Override
+    public String select(List<String> healthyKeys) {
+        if (healthyKeys == null || healthyKeys.isEmpty()) {
+            return null;
+        }
+        return selectFrom(ReplicaView.of(healthyKeys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        AliasTable current = this.table;
+        if (current == null || !current.view.sameAs(replicas)) {
+            current = new AliasTable(replicas, weights);
+            this.table = current;
+        }
+        return replicas.get(current.pick(ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static final class AliasTable {
+        private final ReplicaView view;
+        private final double[] probability;
+        private final int[] alias;
+
+        private AliasTable(ReplicaView view, Map<String, Integer> configured) {
+            int n = view.size();
+            this.view = view;
+            this.probability = new double[n];
+            this.alias = new int[n];
+
+            double[] scaled = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = view.weight(i, configured);
+                total += scaled[i];
+            }
+
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallSize = 0;
+            int largeSize = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = scaled[i] * n / total;
+                if (scaled[i] < 1.0) {
+                    small[smallSize++] = i;
+                } else {
+                    large[largeSize++] = i;
+                }
+            }
+
+            while (smallSize > 0 && largeSize > 0) {
+                int less = small[--smallSize];
+                int more = large[--largeSize];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallSize++] = more;
+                } else {
+                    large[largeSize++] = more;
+                }
+            }
+            // Leftovers are 1.0 up to rounding error
+            while (largeSize > 0) {
+                probability[large[--largeSize]] = 1.0;
+            }
+            while (smallSize > 0) {
+                probability[small[--smallSize]] = 1.0;
+            }
+        }
+
+        /**
+         * Maps one uniform draw in [0, 1) to a column and a coin flip.
+         */
+        private int pick(double draw) {
+            double scaled = draw * probability.length;
+            int column = (int) scaled;
+            return scaled - column < probability[column] ? column : alias[column];
+        }
+    }
+}
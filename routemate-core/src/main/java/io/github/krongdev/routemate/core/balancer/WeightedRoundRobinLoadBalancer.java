@@ -1,22 +1,24 @@
 package io.github.krongdev.routemate.core.balancer;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Weighted Round-Robin Load Balancer.
- * Uses a pre-calculated distribution list where keys are repeated by their
+ * Uses a pre-calculated distribution where keys are repeated by their
  * weight.
  * e.g. A(2), B(1) -> [A, A, B]
- * Supports dynamic updates via AtomicReference.
+ * <p>
+ * The distribution is built for the healthy {@link ReplicaView}, with the
+ * weights it carries, and rebuilt only when the view changes.
  */
 public class WeightedRoundRobinLoadBalancer implements LoadBalancer {
 
-    private final AtomicReference<List<String>> distributionListRef = new AtomicReference<>();
+    private volatile Map<String, Integer> weights = Collections.emptyMap();
+    private volatile Distribution distribution;
     private final AtomicInteger index = new AtomicInteger(0);
 
     public WeightedRoundRobinLoadBalancer(Map<String, Integer> weights) {
@@ -25,25 +27,39 @@ public class WeightedRoundRobinLoadBalancer implements LoadBalancer {
 
     @Override
     public void updateWeights(Map<String, Integer> weights) {
-        List<String> builtList = new ArrayList<>();
-        if (weights != null) {
-            weights.forEach((key, weight) -> {
-                if (weight < 1) weight = 1;
-                for (int i = 0; i < weight; i++) {
-                    builtList.add(key);
-                }
-            });
-        }
-
-        this.distributionListRef.set(Collections.unmodifiableList(builtList));
+        this.weights = weights != null ? new HashMap<>(weights) : Collections.emptyMap();
+        this.distribution = null; // rebuilt on next selection
         this.index.set(0); // reset on weight update
     }
 
+    @Override
+    public boolean usesWeights() {
+        return true;
+    }
+
     @Override
     public String select(List<String> healthyKeys) {
         if (healthyKeys == null || healthyKeys.isEmpty()) {
             return null;
         }
+        return selectFrom(ReplicaView.of(healthyKeys));
+    }
+
+    @Override
+    public String selectFrom(ReplicaView replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return replicas.get(0);
+        }
+
+        Distribution current = this.distribution;
+        if (current == null || !current.view.sameAs(replicas)) {
+            current = new Distribution(replicas, weights);
+            this.distribution = current;
+        }
 
         // overflow protection
         int idx = index.getAndIncrement();
@@ -52,22 +68,26 @@ public class WeightedRoundRobinLoadBalancer implements LoadBalancer {
             idx = 0;
         }
         idx = Math.abs(idx);
+        return replicas.get(current.slots[idx % current.slots.length]);
+    }
 
-        List<String> distributionList = distributionListRef.get();
-        if (distributionList == null || distributionList.isEmpty()) {
-            return healthyKeys.get(idx % healthyKeys.size());
-        }
-
-        int size = distributionList.size();
-        int startIndex = idx % size;
+    private static final class Distribution {
+        private final ReplicaView view;
+        private final int[] slots; // view index per slot
 
-        for (int i = 0; i < size; i++) {
-            String candidate = distributionList.get((startIndex + i) % size);
-            if (healthyKeys.contains(candidate)) {
-                return candidate;
+        private Distribution(ReplicaView view, Map<String, Integer> configured) {
+            this.view = view;
+            int total = 0;
+            for (int i = 0; i < view.size(); i++) {
+                total += view.weight(i, configured);
+            }
+            this.slots = new int[total];
+            int next = 0;
+            for (int i = 0; i < view.size(); i++) {
+                for (int w = view.weight(i, configured); w > 0; w--) {
+                    slots[next++] = i;
+                }
             }
         }
-
-        return healthyKeys.get(idx % healthyKeys.size());
     }
 }
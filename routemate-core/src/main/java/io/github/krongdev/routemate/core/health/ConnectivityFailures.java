@@ -0,0 +1,54 @@
+package io.github.krongdev.routemate.core.health;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Classifies {@link SQLException}s that mean the database itself could not be
+ * reached, as opposed to errors caused by the statement or the data.
+ */
+public final class ConnectivityFailures {
+
+    // SQLState class 08: connection exception
+    private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+    private ConnectivityFailures() {
+    }
+
+    /**
+     * Returns true if the exception, any exception chained to it with
+     * {@link SQLException#getNextException()}, or any of their causes is a
+     * connectivity failure.
+     */
+    public static boolean isConnectivityFailure(SQLException ex) {
+        for (SQLException current = ex; current != null; current = current.getNextException()) {
+            for (Throwable t = current; t != null; t = t.getCause()) {
+                if (t instanceof SQLException sqlException && isConnectivityClass(sqlException)) {
+                    return true;
+                }
+                if (t.getCause() == t) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConnectivityClass(SQLException ex) {
+        // A pool timeout with no underlying failure means the pool is saturated,
+        // not that the database is down (HikariCP attaches the last connection
+        // failure as the cause when there was one)
+        if (ex instanceof SQLTransientConnectionException && ex.getSQLState() == null && ex.getCause() == null) {
+            return false;
+        }
+        if (ex instanceof SQLTransientConnectionException
+                || ex instanceof SQLNonTransientConnectionException
+                || ex instanceof SQLRecoverableException) {
+            return true;
+        }
+        String sqlState = ex.getSQLState();
+        return sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_CLASS);
+    }
+}
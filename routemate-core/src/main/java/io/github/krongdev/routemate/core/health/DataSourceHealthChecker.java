@@ -1,6 +1,7 @@
 package io.github.krongdev.routemate.core.health;
 
 import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,19 +14,38 @@ import java.sql.PreparedStatement; // Import needed
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Periodically probes every read replica and marks it healthy or unhealthy.
+ * <p>
+ * Probes run in parallel, one task per replica (on a virtual thread when the
+ * JDK provides them), and each has a hard deadline of {@code timeout} covering
+ * connection acquisition and the validation query. A replica is published as
+ * soon as its own probe finishes or times out, so one black-holed replica
+ * cannot delay failure detection for the others.
+ */
 public class DataSourceHealthChecker implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(DataSourceHealthChecker.class);
 
     private final DataSourceRouter router;
     private final ScheduledExecutorService executor;
+    private final ExecutorService probeExecutor;
+    private final Set<String> probesInFlight = ConcurrentHashMap.newKeySet();
     private final Duration interval;
     private final Duration timeout;
     private final String validationQuery;
+    private final ReplicationLagProbe lagProbe;
 
     private volatile boolean running = false;
 
@@ -33,16 +53,56 @@ public class DataSourceHealthChecker implements SmartLifecycle {
             Duration interval,
             Duration timeout,
             String validationQuery) {
+        this(router, interval, timeout, validationQuery, null);
+    }
+
+    /**
+     * @param lagProbe probe run after a successful validation to measure
+     *                 replication lag, or null to skip lag measurement
+     */
+    public DataSourceHealthChecker(DataSourceRouter router,
+            Duration interval,
+            Duration timeout,
+            String validationQuery,
+            ReplicationLagProbe lagProbe) {
+        this(router, interval, timeout, validationQuery, lagProbe, newProbeExecutor());
+    }
+
+    DataSourceHealthChecker(DataSourceRouter router,
+            Duration interval,
+            Duration timeout,
+            String validationQuery,
+            ReplicationLagProbe lagProbe,
+            ExecutorService probeExecutor) {
         this.router = router;
         this.interval = interval;
         this.timeout = timeout;
         this.validationQuery = validationQuery;
+        this.lagProbe = lagProbe;
 
         this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "routemate-health-checker");
             t.setDaemon(true);
             return t;
         });
+        this.probeExecutor = probeExecutor;
+    }
+
+    /**
+     * Uses a virtual thread per probe on JDK 21+, and a cached pool of daemon
+     * threads otherwise.
+     */
+    private static ExecutorService newProbeExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "routemate-health-probe-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
     }
 
     @Override
@@ -77,45 +137,130 @@ public class DataSourceHealthChecker implements SmartLifecycle {
     public void shutdown() {
         log.info("Shutting down DataSourceHealthChecker executor...");
         executor.shutdownNow();
+        probeExecutor.shutdownNow();
     }
 
-    // ... checkHealth and isHealthy methods ...
-
     private void checkHealth() {
-        Map<String, DataSource> dataSources = router.getReadDataSources();
+        // Probe against one snapshot so keys and DataSources always match
+        RoutingTable table = router.getRoutingTable();
+        Map<String, DataSource> dataSources = table.getReadDataSources();
 
-        for (String key : router.getReadDataSourceKeys()) {
+        for (String key : table.getReadKeys().asList()) {
             DataSource ds = dataSources.get(key);
             if (ds == null)
                 continue;
 
-            if (isHealthy(ds, key)) {
-                router.markHealthy(key);
-            } else {
+            // A probe still stuck from an earlier round has already been timed out
+            if (!probesInFlight.add(key))
+                continue;
+
+            Probe probe = new Probe(key, ds);
+            try {
+                probe.future = probeExecutor.submit(probe);
+                executor.schedule(probe::expire, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                probesInFlight.remove(key);
+                return; // shutting down
+            }
+        }
+    }
+
+    /**
+     * A single replica probe. Whichever comes first, the probe result or the
+     * deadline, is published; the other is ignored.
+     * <p>
+     * The replica stays in {@code probesInFlight} until the probe returns, so a
+     * hung probe is not piled up on. A probe cancelled at the deadline before it
+     * started never runs, so the deadline releases the replica instead.
+     */
+    private final class Probe implements Runnable {
+        private final String key;
+        private final DataSource ds;
+        private final AtomicBoolean published = new AtomicBoolean();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        private Probe(String key, DataSource ds) {
+            this.key = key;
+            this.ds = ds;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return; // expired while queued; the deadline released the replica
+            }
+            try {
+                boolean healthy = isHealthy(ds, key);
+                if (published.compareAndSet(false, true)) {
+                    if (healthy) {
+                        router.markHealthy(key);
+                    } else {
+                        router.markUnhealthy(key);
+                    }
+                }
+            } finally {
+                probesInFlight.remove(key);
+            }
+        }
+
+        private void expire() {
+            if (published.compareAndSet(false, true)) {
+                log.warn("Health check for [{}] did not complete within {}ms", key, timeout.toMillis());
                 router.markUnhealthy(key);
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(true);
+                }
+                if (started.compareAndSet(false, true)) {
+                    probesInFlight.remove(key);
+                }
             }
         }
     }
 
     private boolean isHealthy(DataSource ds, String key) {
         try (Connection conn = ds.getConnection()) {
+            boolean valid;
             if (validationQuery != null && !validationQuery.trim().isEmpty()) {
                 // Use validation query
                 try (PreparedStatement ps = conn.prepareStatement(validationQuery)) {
-                    ps.setQueryTimeout((int) timeout.toSeconds());
+                    ps.setQueryTimeout(timeoutSeconds());
                     ps.execute();
-                    return true;
+                    valid = true;
                 }
             } else {
                 // Use isValid
-                int timeoutSec = (int) timeout.toSeconds();
-                if (timeoutSec < 1)
-                    timeoutSec = 1;
-                return conn.isValid(timeoutSec);
+                valid = conn.isValid(timeoutSeconds());
+            }
+            if (valid && lagProbe != null) {
+                measureLag(conn, key);
             }
+            return valid;
         } catch (SQLException e) {
             log.warn("Health check failed for [{}]: {}", key, e.getMessage());
             return false;
         }
     }
+
+    /**
+     * JDBC timeouts are whole seconds and 0 means "no timeout", so round up.
+     * The probe deadline still applies at millisecond precision.
+     */
+    private int timeoutSeconds() {
+        long millis = timeout.toMillis();
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    private void measureLag(Connection conn, String key) {
+        Duration lag;
+        try {
+            lag = lagProbe.measure(conn);
+        } catch (SQLException e) {
+            // The replica answered, so keep it healthy; its lag is just unknown
+            log.warn("Replication lag probe failed for [{}]: {}", key, e.getMessage());
+            lag = null;
+        }
+        router.updateReplicationLag(key, lag, lagProbe.getGranularity());
+    }
 }
@@ -0,0 +1,65 @@
+package io.github.krongdev.routemate.core.health;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+
+/**
+ * Measures lag with a heartbeat table that the primary updates periodically
+ * (e.g. pt-heartbeat).
+ * <p>
+ * The query must return a single value: either the timestamp of the last
+ * replicated heartbeat, or the lag itself as a number of seconds. Computing the
+ * lag in SQL (e.g. {@code SELECT TIMESTAMPDIFF(SECOND, ts, NOW()) FROM heartbeat})
+ * avoids clock skew between the application and the database.
+ * <p>
+ * The granularity should cover the heartbeat interval and the resolution of
+ * the query; it defaults to one second.
+ */
+public class HeartbeatTableLagProbe implements ReplicationLagProbe {
+
+    public static final Duration DEFAULT_GRANULARITY = Duration.ofSeconds(1);
+
+    private final String query;
+    private final Duration granularity;
+
+    public HeartbeatTableLagProbe(String query) {
+        this(query, DEFAULT_GRANULARITY);
+    }
+
+    public HeartbeatTableLagProbe(String query, Duration granularity) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("heartbeat query must not be empty");
+        }
+        this.query = query;
+        this.granularity = granularity == null || granularity.isNegative() ? Duration.ZERO : granularity;
+    }
+
+    @Override
+    public Duration getGranularity() {
+        return granularity;
+    }
+
+    @Override
+    public Duration measure(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery(query)) {
+            if (!rs.next()) {
+                return REPLICATION_STOPPED; // no heartbeat replicated yet
+            }
+            Object value = rs.getObject(1);
+            if (value == null) {
+                return REPLICATION_STOPPED;
+            }
+            if (value instanceof Number number) {
+                return Duration.ofMillis((long) Math.max(0, number.doubleValue() * 1000));
+            }
+            Timestamp heartbeat = rs.getTimestamp(1);
+            long lagMillis = System.currentTimeMillis() - heartbeat.getTime();
+            return Duration.ofMillis(Math.max(0, lagMillis));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.krongdev.routemate.core.health;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Reads {@code Seconds_Behind_Source} from {@code SHOW REPLICA STATUS}.
+ * Falls back to {@code SHOW SLAVE STATUS} / {@code Seconds_Behind_Master}
+ * on servers older than MySQL 8.0.22.
+ * <p>
+ * The lag is reported in whole seconds, hence a granularity of one second.
+ */
+public class MySqlReplicationLagProbe implements ReplicationLagProbe {
+
+    private static final Duration GRANULARITY = Duration.ofSeconds(1);
+
+    @Override
+    public Duration measure(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+            return readLag(rs, "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            // Syntax not supported, try the legacy statement
+            try (Statement st = connection.createStatement();
+                    ResultSet rs = st.executeQuery("SHOW SLAVE STATUS")) {
+                return readLag(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+
+    @Override
+    public Duration getGranularity() {
+        return GRANULARITY;
+    }
+
+    private Duration readLag(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) {
+            return null; // not a replica
+        }
+        long seconds = rs.getLong(column);
+        if (rs.wasNull()) {
+            return REPLICATION_STOPPED;
+        }
+        return Duration.ofSeconds(seconds);
+    }
+}
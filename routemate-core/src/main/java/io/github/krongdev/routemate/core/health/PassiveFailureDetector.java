@@ -0,0 +1,271 @@
+package io.github.krongdev.routemate.core.health;
+
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-replica circuit breaker driven by application traffic.
+ * <p>
+ * When {@code getConnection()} or a connection on a replica (and its
+ * statements, if the router reports them) fails with a connectivity-class
+ * {@link SQLException} (see {@link ConnectivityFailures}) {@code failureThreshold}
+ * times in a row, the breaker opens and the replica is marked unhealthy right
+ * away, instead of on the next scheduled health check. After {@code openDuration} the router lets up to
+ * {@code halfOpenTrials} reads through to the replica; once that many trial
+ * connections are returned without a connectivity failure the replica is
+ * marked healthy again, and any failure reopens the breaker. Connections
+ * obtained before the trial round started do not count as trials.
+ * <p>
+ * A replica marked healthy by someone else (e.g. {@link DataSourceHealthChecker})
+ * closes its breaker.
+ */
+public class PassiveFailureDetector implements RoutingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PassiveFailureDetector.class);
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(1);
+    public static final int DEFAULT_HALF_OPEN_TRIALS = 3;
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private static final CircuitBreaker[] NONE = new CircuitBreaker[0];
+
+    private final DataSourceRouter router;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenTrials;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final ReentrantLock trippedLock = new ReentrantLock();
+    // Breakers that are not closed; read on every routing decision
+    private volatile CircuitBreaker[] tripped = NONE;
+    private volatile RoutingTable lastTable;
+
+    public PassiveFailureDetector(DataSourceRouter router) {
+        this(router, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_TRIALS);
+    }
+
+    /**
+     * @param failureThreshold consecutive connectivity failures that open the breaker
+     * @param openDuration     how long an open breaker rejects traffic before trials
+     * @param halfOpenTrials   successful trial connections needed to close the breaker
+     */
+    public PassiveFailureDetector(DataSourceRouter router, int failureThreshold, Duration openDuration,
+            int halfOpenTrials) {
+        if (failureThreshold < 1 || halfOpenTrials < 1) {
+            throw new IllegalArgumentException("failureThreshold and halfOpenTrials must be positive");
+        }
+        if (openDuration == null || openDuration.isNegative()) {
+            throw new IllegalArgumentException("openDuration must not be negative");
+        }
+        this.router = router;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenTrials = halfOpenTrials;
+    }
+
+    /**
+     * Returns a replica whose breaker currently admits a trial request, or null.
+     * Called by the router for every unrestricted READ lookup, so the common
+     * case (no tripped breaker) is a single volatile read.
+     */
+    public String trialCandidate() {
+        CircuitBreaker[] current = this.tripped;
+        if (current.length == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        for (CircuitBreaker breaker : current) {
+            if (breaker.tryAcquireTrial(now)) {
+                return breaker.key;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void connectionFailed(String key, SQLException ex) {
+        RoutingTable table = this.lastTable;
+        if (table == null || !table.getReadDataSources().containsKey(key)
+                || !ConnectivityFailures.isConnectivityFailure(ex)) {
+            return;
+        }
+        breakers.computeIfAbsent(key, CircuitBreaker::new).onFailure(ex);
+    }
+
+    @Override
+    public void connectionReleased(String key, long heldNanos) {
+        CircuitBreaker breaker = breakers.get(key);
+        if (breaker != null) {
+            breaker.onSuccess(System.nanoTime() - heldNanos);
+        }
+    }
+
+    @Override
+    public boolean observesWriteConnections() {
+        return false;
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        RoutingTable previous = this.lastTable;
+        this.lastTable = table;
+        for (CircuitBreaker breaker : tripped) {
+            String key = breaker.key;
+            if (!table.getReadDataSources().containsKey(key)) {
+                breakers.remove(key);
+                untrip(breaker);
+            } else if (previous != null && previous.isUnhealthy(key) && !table.isUnhealthy(key)) {
+                breaker.reset();
+            }
+        }
+        breakers.keySet().retainAll(table.getReadDataSources().keySet());
+    }
+
+    /**
+     * Returns true if the breaker for the given replica is open or half-open.
+     */
+    public boolean isTripped(String key) {
+        CircuitBreaker breaker = breakers.get(key);
+        return breaker != null && breaker.state.get() != CLOSED;
+    }
+
+    private void trip(CircuitBreaker breaker) {
+        trippedLock.lock();
+        try {
+            CircuitBreaker[] current = this.tripped;
+            for (CircuitBreaker b : current) {
+                if (b == breaker) {
+                    return;
+                }
+            }
+            CircuitBreaker[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = breaker;
+            this.tripped = updated;
+        } finally {
+            trippedLock.unlock();
+        }
+    }
+
+    private void untrip(CircuitBreaker breaker) {
+        trippedLock.lock();
+        try {
+            CircuitBreaker[] updated = Arrays.stream(this.tripped)
+                    .filter(b -> b != breaker)
+                    .toArray(CircuitBreaker[]::new);
+            this.tripped = updated.length == 0 ? NONE : updated;
+        } finally {
+            trippedLock.unlock();
+        }
+    }
+
+    private final class CircuitBreaker {
+        private final String key;
+        private final AtomicInteger state = new AtomicInteger(CLOSED);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger trialPermits = new AtomicInteger();
+        private final AtomicInteger trialSuccesses = new AtomicInteger();
+        private volatile long changedAt;
+
+        private CircuitBreaker(String key) {
+            this.key = key;
+        }
+
+        private void onFailure(SQLException ex) {
+            int current = state.get();
+            if (current == OPEN) {
+                return;
+            }
+            if (current == CLOSED && consecutiveFailures.incrementAndGet() < failureThreshold) {
+                return;
+            }
+            trialPermits.set(0);
+            changedAt = System.nanoTime();
+            if (state.compareAndSet(current, OPEN)) {
+                if (current == CLOSED) {
+                    log.warn("Connectivity failure on [{}], opening circuit breaker: {}", key, ex.getMessage());
+                } else {
+                    log.warn("Trial request to [{}] failed, reopening circuit breaker: {}", key, ex.getMessage());
+                }
+                trip(this);
+                router.markUnhealthy(key);
+            }
+        }
+
+        /**
+         * @param acquiredAt when the returned connection was obtained; while
+         *                   half-open only connections obtained after the trial
+         *                   round started, i.e. through {@link #trialCandidate()},
+         *                   count as trial successes
+         */
+        private void onSuccess(long acquiredAt) {
+            int current = state.get();
+            if (current == CLOSED) {
+                if (consecutiveFailures.get() != 0) {
+                    consecutiveFailures.set(0);
+                }
+            } else if (current == HALF_OPEN && acquiredAt - changedAt >= 0
+                    && trialSuccesses.incrementAndGet() >= halfOpenTrials
+                    && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                consecutiveFailures.set(0);
+                untrip(this);
+                log.info("Trial requests to [{}] succeeded, closing circuit breaker", key);
+                router.markHealthy(key);
+            }
+        }
+
+        private boolean tryAcquireTrial(long now) {
+            int current = state.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (current == HALF_OPEN && takePermit()) {
+                return true;
+            }
+            if (now - changedAt < openNanos) {
+                return false;
+            }
+            // Start a trial round once the breaker has been open long enough, or
+            // again when an earlier round's trials never came back
+            if (!state.compareAndSet(current, HALF_OPEN)) {
+                return false;
+            }
+            changedAt = now;
+            trialSuccesses.set(0);
+            trialPermits.set(halfOpenTrials - 1);
+            return true;
+        }
+
+        private boolean takePermit() {
+            int permits;
+            do {
+                permits = trialPermits.get();
+                if (permits <= 0) {
+                    return false;
+                }
+            } while (!trialPermits.compareAndSet(permits, permits - 1));
+            return true;
+        }
+
+        private void reset() {
+            if (state.getAndSet(CLOSED) != CLOSED) {
+                consecutiveFailures.set(0);
+                untrip(this);
+            }
+        }
+    }
+}
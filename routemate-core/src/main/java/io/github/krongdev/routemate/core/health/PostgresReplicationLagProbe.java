@@ -0,0 +1,36 @@
+package io.github.krongdev.routemate.core.health;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Derives lag from {@code pg_last_xact_replay_timestamp()}.
+ * A standby that has replayed everything it received reports zero lag, so an
+ * idle primary does not make replicas look stale.
+ */
+public class PostgresReplicationLagProbe implements ReplicationLagProbe {
+
+    private static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN NULL"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000"
+            + " END";
+
+    @Override
+    public Duration measure(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery(LAG_QUERY)) {
+            if (!rs.next()) {
+                return null;
+            }
+            double millis = rs.getDouble(1);
+            if (rs.wasNull()) {
+                return null; // not a standby
+            }
+            return Duration.ofMillis((long) Math.max(0, millis));
+        }
+    }
+}
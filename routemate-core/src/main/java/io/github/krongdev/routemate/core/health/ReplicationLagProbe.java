@@ -0,0 +1,33 @@
+package io.github.krongdev.routemate.core.health;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Measures how far a read replica is behind its source.
+ * Called by {@link DataSourceHealthChecker} on a connection it has just validated.
+ */
+@FunctionalInterface
+public interface ReplicationLagProbe {
+
+    /**
+     * Lag reported for a replica whose replication is not running.
+     */
+    Duration REPLICATION_STOPPED = Duration.ofMillis(Long.MAX_VALUE);
+
+    /**
+     * @param connection a connection to the replica
+     * @return the replication lag, or null if it cannot be determined
+     *         (e.g. the server is not a replica)
+     */
+    Duration measure(Connection connection) throws SQLException;
+
+    /**
+     * Resolution of the measured lag. Read-your-writes only trusts a replica
+     * to have applied writes older than the measured lag plus this margin.
+     */
+    default Duration getGranularity() {
+        return Duration.ZERO;
+    }
+}
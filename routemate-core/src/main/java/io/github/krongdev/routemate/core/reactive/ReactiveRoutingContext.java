@@ -0,0 +1,60 @@
+package io.github.krongdev.routemate.core.reactive;
+
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link RoutingContext}: the routing key travels in
+ * the Reactor {@link Context} instead of a ThreadLocal.
+ * Usage:
+ * <pre>
+ * repository.findAll().contextWrite(ReactiveRoutingContext.read());
+ * </pre>
+ * As with Reactor contexts in general, the write closest to the source wins,
+ * so an inner {@code contextWrite} overrides an outer one.
+ */
+public final class ReactiveRoutingContext {
+
+    /**
+     * Reactor Context key holding the routing key.
+     */
+    public static final String KEY = ReactiveRoutingContext.class.getName() + ".KEY";
+
+    private ReactiveRoutingContext() {
+    }
+
+    /**
+     * Routes connections created downstream of this point to a read replica.
+     */
+    public static Function<Context, Context> read() {
+        return with(RoutingContext.READ);
+    }
+
+    /**
+     * Routes connections created downstream of this point to WRITE.
+     */
+    public static Function<Context, Context> write() {
+        return with(RoutingContext.WRITE);
+    }
+
+    /**
+     * Routes connections created downstream of this point to the given key
+     * (READ, WRITE or a specific replica).
+     */
+    public static Function<Context, Context> with(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("key cannot be null or empty");
+        }
+        return context -> context.put(KEY, key);
+    }
+
+    /**
+     * Returns the routing key in the given context, or null if none was set.
+     */
+    public static String get(ContextView context) {
+        return context.getOrDefault(KEY, null);
+    }
+}
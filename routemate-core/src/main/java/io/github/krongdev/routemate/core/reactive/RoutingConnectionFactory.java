@@ -0,0 +1,285 @@
+package io.github.krongdev.routemate.core.reactive;
+
+import io.github.krongdev.routemate.core.balancer.LoadBalancer;
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reactive counterpart of {@link DataSourceRouter} for R2DBC.
+ * <p>
+ * The routing key is read from the Reactor Context when a connection is
+ * created (see {@link ReactiveRoutingContext}); {@link RoutingR2dbcTransactionManager}
+ * supplies READ for read-only transactions. READ picks a healthy replica with
+ * the configured {@link LoadBalancer} and falls back to WRITE when none is
+ * left; no key routes to WRITE.
+ * <p>
+ * Like the JDBC router, all state lives in an immutable snapshot replaced
+ * atomically. Health is set with {@link #markHealthy(String)} and
+ * {@link #markUnhealthy(String)}, or mirrored from a {@link DataSourceRouter}
+ * that uses the same replica keys by registering this factory as one of its
+ * listeners, so its health checker, circuit breakers and lag limit apply to
+ * R2DBC traffic as well. Balancers that learn from connection callbacks (e.g.
+ * least connections) receive none from this factory, so stateless ones such
+ * as round robin or weighted random are the better fit.
+ */
+public class RoutingConnectionFactory implements ConnectionFactory, RoutingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingConnectionFactory.class);
+
+    private final AtomicReference<Targets> targets;
+    private volatile LoadBalancer loadBalancer;
+
+    public RoutingConnectionFactory(ConnectionFactory writeConnectionFactory, LoadBalancer loadBalancer) {
+        if (writeConnectionFactory == null) {
+            throw new IllegalArgumentException("writeConnectionFactory must not be null");
+        }
+        this.targets = new AtomicReference<>(Targets.initial(writeConnectionFactory));
+        this.loadBalancer = loadBalancer != null ? loadBalancer : new RoundRobinLoadBalancer();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            Targets current = targets.get();
+            String key = determineLookupKey(current, ReactiveRoutingContext.get(context));
+            return Mono.<Connection>from(current.get(key).create());
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return targets.get().write.getMetadata();
+    }
+
+    private String determineLookupKey(Targets current, String requested) {
+        if (requested == null || RoutingContext.WRITE.equals(requested)) {
+            return RoutingContext.WRITE;
+        }
+        if (!RoutingContext.READ.equals(requested)) {
+            // An explicit replica key; unknown keys go to WRITE like in the JDBC router
+            return current.reads.containsKey(requested) ? requested : RoutingContext.WRITE;
+        }
+        if (current.healthy.isEmpty()) {
+            log.warn("No healthy read replicas available. Falling back to WRITE ConnectionFactory.");
+            return RoutingContext.WRITE;
+        }
+        String selected = loadBalancer.selectFrom(current.healthy);
+        return selected != null && current.reads.containsKey(selected) ? selected : RoutingContext.WRITE;
+    }
+
+    /**
+     * Follows the health of a {@link DataSourceRouter}: a replica key known to
+     * both is used only while the JDBC router would use it for unrestricted
+     * reads (healthy and within the lag limit). Keys unknown to the router keep
+     * their own state.
+     */
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        ReplicaView routerKeys = table.getReadKeys();
+        ReplicaView routerHealthy = table.getHealthyReplicas();
+        swap(current -> {
+            Set<String> unhealthy = new HashSet<>(current.unhealthy);
+            for (String key : current.reads.keySet()) {
+                if (routerKeys.indexOf(key) < 0) {
+                    continue;
+                }
+                if (routerHealthy.indexOf(key) < 0) {
+                    unhealthy.add(key);
+                } else {
+                    unhealthy.remove(key);
+                }
+            }
+            return unhealthy.equals(current.unhealthy) ? current : current.withUnhealthy(unhealthy);
+        });
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public void setLoadBalancer(LoadBalancer loadBalancer) {
+        this.loadBalancer = loadBalancer;
+        Map<String, Integer> weights = targets.get().weights;
+        if (loadBalancer != null && !weights.isEmpty()) {
+            loadBalancer.updateWeights(weights);
+        }
+    }
+
+    public ConnectionFactory getWriteConnectionFactory() {
+        return targets.get().write;
+    }
+
+    /**
+     * @return unmodifiable map of read ConnectionFactories, in registration order.
+     */
+    public Map<String, ConnectionFactory> getReadConnectionFactories() {
+        return targets.get().reads;
+    }
+
+    /**
+     * Returns the replicas currently used for READ.
+     */
+    public ReplicaView getHealthyReplicas() {
+        return targets.get().healthy;
+    }
+
+    public void setReadConnectionFactories(Map<String, ConnectionFactory> connectionFactories) {
+        swap(current -> current.withReads(connectionFactories));
+        publishWeights();
+    }
+
+    public void addReadConnectionFactory(String key, ConnectionFactory connectionFactory, int weight) {
+        if (key == null || key.trim().isEmpty() || RoutingContext.WRITE.equals(key)
+                || RoutingContext.READ.equals(key)) {
+            throw new IllegalArgumentException("Invalid read ConnectionFactory key: " + key);
+        }
+        log.info("Adding Read ConnectionFactory [{}] with weight [{}]", key, weight);
+        swap(current -> current.withRead(key, connectionFactory, weight));
+        publishWeights();
+    }
+
+    public void removeReadConnectionFactory(String key) {
+        log.info("Removing Read ConnectionFactory [{}]", key);
+        swap(current -> current.without(key));
+        publishWeights();
+    }
+
+    public void markUnhealthy(String key) {
+        Targets previous = swap(current -> {
+            if (!current.reads.containsKey(key) || current.unhealthy.contains(key)) {
+                return current;
+            }
+            Set<String> unhealthy = new HashSet<>(current.unhealthy);
+            unhealthy.add(key);
+            return current.withUnhealthy(unhealthy);
+        });
+        if (previous.reads.containsKey(key) && !previous.unhealthy.contains(key)) {
+            log.warn("Marking ConnectionFactory [{}] as UNHEALTHY", key);
+        }
+    }
+
+    public void markHealthy(String key) {
+        Targets previous = swap(current -> {
+            if (!current.unhealthy.contains(key)) {
+                return current;
+            }
+            Set<String> unhealthy = new HashSet<>(current.unhealthy);
+            unhealthy.remove(key);
+            return current.withUnhealthy(unhealthy);
+        });
+        if (previous.unhealthy.contains(key)) {
+            log.info("Marking ConnectionFactory [{}] as HEALTHY", key);
+        }
+    }
+
+    private Targets swap(UnaryOperator<Targets> change) {
+        return targets.getAndUpdate(change);
+    }
+
+    private void publishWeights() {
+        LoadBalancer current = this.loadBalancer;
+        if (current != null) {
+            current.updateWeights(targets.get().weights);
+        }
+    }
+
+    /**
+     * Immutable routing state, the R2DBC analogue of {@link RoutingTable}.
+     */
+    private static final class Targets {
+        private final ConnectionFactory write;
+        private final Map<String, ConnectionFactory> reads;
+        private final Map<String, Integer> weights;
+        private final Set<String> unhealthy;
+        private final ReplicaView healthy;
+
+        private Targets(ConnectionFactory write, Map<String, ConnectionFactory> reads,
+                Map<String, Integer> weights, Set<String> unhealthy) {
+            this.write = write;
+            this.reads = Collections.unmodifiableMap(reads);
+            this.weights = Collections.unmodifiableMap(weights);
+            this.unhealthy = Collections.unmodifiableSet(unhealthy);
+            List<String> healthyKeys = new ArrayList<>(reads.size());
+            for (String key : reads.keySet()) {
+                if (!unhealthy.contains(key)) {
+                    healthyKeys.add(key);
+                }
+            }
+            this.healthy = ReplicaView.of(healthyKeys, this.weights);
+        }
+
+        private static Targets initial(ConnectionFactory write) {
+            return new Targets(write, new LinkedHashMap<>(), new LinkedHashMap<>(), new HashSet<>());
+        }
+
+        private ConnectionFactory get(String key) {
+            if (RoutingContext.WRITE.equals(key)) {
+                return write;
+            }
+            ConnectionFactory factory = reads.get(key);
+            return factory != null ? factory : write;
+        }
+
+        private Targets withReads(Map<String, ConnectionFactory> connectionFactories) {
+            Map<String, ConnectionFactory> newReads = new LinkedHashMap<>();
+            if (connectionFactories != null) {
+                newReads.putAll(connectionFactories);
+            }
+            // Keys keep their weight if they had one and start at 1 otherwise
+            Map<String, Integer> newWeights = new LinkedHashMap<>();
+            for (String key : newReads.keySet()) {
+                newWeights.put(key, weights.getOrDefault(key, 1));
+            }
+            Set<String> newUnhealthy = new HashSet<>(unhealthy);
+            newUnhealthy.retainAll(newReads.keySet());
+            return new Targets(write, newReads, newWeights, newUnhealthy);
+        }
+
+        private Targets withRead(String key, ConnectionFactory connectionFactory, int weight) {
+            Map<String, ConnectionFactory> newReads = new LinkedHashMap<>(reads);
+            newReads.put(key, connectionFactory);
+            Map<String, Integer> newWeights = new LinkedHashMap<>(weights);
+            newWeights.put(key, weight);
+            Set<String> newUnhealthy = new HashSet<>(unhealthy);
+            newUnhealthy.remove(key);
+            return new Targets(write, newReads, newWeights, newUnhealthy);
+        }
+
+        private Targets without(String key) {
+            if (!reads.containsKey(key)) {
+                return this;
+            }
+            Map<String, ConnectionFactory> newReads = new LinkedHashMap<>(reads);
+            newReads.remove(key);
+            Map<String, Integer> newWeights = new LinkedHashMap<>(weights);
+            newWeights.remove(key);
+            Set<String> newUnhealthy = new HashSet<>(unhealthy);
+            newUnhealthy.remove(key);
+            return new Targets(write, newReads, newWeights, newUnhealthy);
+        }
+
+        private Targets withUnhealthy(Set<String> newUnhealthy) {
+            return new Targets(write, reads, weights, newUnhealthy);
+        }
+    }
+}
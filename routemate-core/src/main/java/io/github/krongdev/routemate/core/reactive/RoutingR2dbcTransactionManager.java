@@ -0,0 +1,35 @@
+package io.github.krongdev.routemate.core.reactive;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link R2dbcTransactionManager} that routes read-only transactions to a
+ * replica.
+ * <p>
+ * The transaction's connection is created in {@code doBegin}, before the
+ * read-only flag is exposed through the reactive synchronization manager, so
+ * the flag is handed to {@link RoutingConnectionFactory} as a READ key in the
+ * Reactor Context instead. An explicit key already in the context wins.
+ */
+public class RoutingR2dbcTransactionManager extends R2dbcTransactionManager {
+
+    public RoutingR2dbcTransactionManager(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    @Override
+    protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+            TransactionDefinition definition) {
+        Mono<Void> begin = super.doBegin(synchronizationManager, transaction, definition);
+        if (!definition.isReadOnly()) {
+            return begin;
+        }
+        return begin.contextWrite(context -> context.hasKey(ReactiveRoutingContext.KEY)
+                ? context
+                : ReactiveRoutingContext.read().apply(context));
+    }
+}
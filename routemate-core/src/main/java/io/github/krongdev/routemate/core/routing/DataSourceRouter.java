@@ -1,155 +1,859 @@
 package io.github.krongdev.routemate.core.routing;
 
-import lombok.Getter;
-import lombok.Setter;
+import jakarta.annotation.PreDestroy;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Map;
-import java.util.List;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.github.krongdev.routemate.core.balancer.LoadBalancer;
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
 import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.health.PassiveFailureDetector;
 
 /**
  * Dynamic DataSource router.
  * Routes to the target DataSource based on the current RoutingContext.
+ * <p>
+ * All routing state lives in an immutable {@link RoutingTable} that is replaced
+ * atomically on every membership, weight or health change. Lookups read the
+ * table once and never block.
  */
 public class DataSourceRouter extends AbstractRoutingDataSource {
 
     private static final Logger log = LoggerFactory.getLogger(DataSourceRouter.class);
     private final DataSource writeDataSource;
-    @Getter
-    private final Map<String, DataSource> readDataSources = new ConcurrentHashMap<>();
-
-    // Safe to return COWAL
-    @Getter
-    private final List<String> readDataSourceKeys = new CopyOnWriteArrayList<>();
-    private final Set<String> unhealthyKeys = ConcurrentHashMap.newKeySet();
-    @Setter
-    private LoadBalancer loadBalancer;
+    private final AtomicReference<RoutingTable> routingTable;
+    private volatile LoadBalancer loadBalancer;
+    private volatile RoutingListener[] listeners = new RoutingListener[0];
+    // Serializes listener registration; a lock rather than synchronized so virtual threads do not pin
+    private final ReentrantLock listenersLock = new ReentrantLock();
+    // True when some listener needs the release or failures of READ / WRITE connections
+    private volatile boolean wrapReadConnections;
+    private volatile boolean wrapWriteConnections;
+    // Opt-in: wrap statements so their failures reach connectionFailed
+    private volatile boolean reportStatementFailures;
+    // True when some listener overrides replicaSelected, so selection must be timed
+    private volatile boolean reportSelections;
+    private volatile PassiveFailureDetector failureDetector;
+    private volatile SlowStart slowStart;
+    private final ReplicaDrainer drainer = new ReplicaDrainer();
+    private volatile Duration drainTimeout = ReplicaDrainer.DEFAULT_TIMEOUT;
+
+    // Read-your-writes: wall-clock time up to which each replica is known to have applied changes
+    private final Map<String, Long> replicatedUpTo = new ConcurrentHashMap<>();
+    private volatile long readYourWritesWindowMillis = 0;
+
+    // Connection-acquisition failover for READ routes
+    private volatile boolean failoverEnabled = false;
+    private volatile int failoverMaxRetries;
+    private volatile long failoverDeadlineNanos;
 
     public DataSourceRouter(DataSource writeDataSource, LoadBalancer loadBalancer) {
         log.error("WRITE DS CLASS = {}", writeDataSource.getClass());
         this.writeDataSource = writeDataSource;
-        this.loadBalancer = loadBalancer != null ? loadBalancer : new RoundRobinLoadBalancer();
-        refreshRouting();
+        this.routingTable = new AtomicReference<>(RoutingTable.initial(writeDataSource));
+        setLoadBalancer(loadBalancer != null ? loadBalancer : new RoundRobinLoadBalancer());
+
+        // Targets are resolved from the RoutingTable; the parent only needs a valid
+        // configuration once.
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        if (writeDataSource != null) {
+            targetDataSources.put(RoutingContext.WRITE, writeDataSource);
+            super.setDefaultTargetDataSource(writeDataSource);
+        }
+        super.setTargetDataSources(targetDataSources);
+        super.afterPropertiesSet();
     }
 
     @Override
     protected Object determineCurrentLookupKey() {
-        String key = RoutingContext.get();
-        if (RoutingContext.READ.equals(key)) {
-            // Use snapshot for safety (CopyOnWriteArrayList iterator is safe)
-            List<String> healthyKeys = new ArrayList<>();
-            for (String k : readDataSourceKeys) {
-                if (!unhealthyKeys.contains(k)) {
-                    healthyKeys.add(k);
+        return determineCurrentLookupKey(routingTable.get());
+    }
+
+    private String determineCurrentLookupKey(RoutingTable table) {
+        if (isReadRoute()) {
+            long maxStaleness = RoutingContext.getMaxStalenessMillis();
+            long lastWrite = readYourWritesMark();
+            ReplicaView healthyKeys = readCandidates(table, maxStaleness, lastWrite);
+            if (healthyKeys.isEmpty() && lastWrite > 0) {
+                log.debug("No replica has caught up with the last write yet. Routing to WRITE DataSource.");
+                notifyFallback(FallbackReason.NOT_CAUGHT_UP);
+                return RoutingContext.WRITE;
+            }
+
+            // Half-open circuit breakers get their trial requests from unrestricted reads
+            PassiveFailureDetector detector = this.failureDetector;
+            if (detector != null && maxStaleness == RoutingContext.NO_STALENESS_BOUND && lastWrite == 0) {
+                String trial = detector.trialCandidate();
+                if (trial != null) {
+                    return trial;
                 }
             }
 
             if (healthyKeys.isEmpty()) {
                 log.warn("No healthy read replicas available. Falling back to WRITE DataSource.");
-                return "WRITE";
+                notifyFallback(FallbackReason.NO_HEALTHY_REPLICA);
+                return RoutingContext.WRITE;
+            }
+
+            if (table.isTiered()) {
+                return selectTiered(table, healthyKeys);
             }
 
             // Delegate availability logic to LoadBalancer
-            return loadBalancer.select(healthyKeys);
+            return select(table, healthyKeys);
         }
-        return "WRITE";
+        return RoutingContext.WRITE;
     }
 
-    public void setReadDataSources(Map<String, DataSource> readDataSources) {
-        this.readDataSources.clear();
-        this.readDataSourceKeys.clear();
-        if (readDataSources != null) {
-            this.readDataSources.putAll(readDataSources);
-            this.readDataSourceKeys.addAll(readDataSources.keySet());
+    /**
+     * Picks from the most preferred tier that still has a replica whose pool
+     * is not saturated, using the LoadBalancer within that tier. WRITE is the
+     * last tier.
+     */
+    private String selectTiered(RoutingTable table, ReplicaView candidates) {
+        for (ReplicaView tier : table.getTiersOf(candidates)) {
+            ReplicaView available = unsaturated(table, tier);
+            if (!available.isEmpty()) {
+                return select(table, available);
+            }
         }
-        refreshRouting();
+        log.debug("Every replica tier is saturated. Routing to WRITE DataSource.");
+        notifyFallback(FallbackReason.SATURATED);
+        return RoutingContext.WRITE;
     }
 
-    public DataSource getDataSource(String key) {
-        if ("WRITE".equals(key)) {
-            return writeDataSource;
+    /**
+     * Drops replicas whose connection pool has callers waiting for a
+     * connection. Only HikariCP pools are inspected; this is a constant-time
+     * read of the pool's waiter count. The table caches the resulting subset,
+     * so only a change in which replicas are saturated allocates a new view.
+     */
+    private static ReplicaView unsaturated(RoutingTable table, ReplicaView tier) {
+        Map<String, DataSource> dataSources = table.getReadDataSources();
+        if (tier.size() > Long.SIZE) {
+            List<String> available = new ArrayList<>(tier.size());
+            for (int i = 0; i < tier.size(); i++) {
+                if (!isSaturated(dataSources.get(tier.get(i)))) {
+                    available.add(tier.get(i));
+                }
+            }
+            return tier.subset(available);
+        }
+        long saturated = 0;
+        for (int i = 0; i < tier.size(); i++) {
+            if (isSaturated(dataSources.get(tier.get(i)))) {
+                saturated |= 1L << i;
+            }
+        }
+        return table.getTierWithout(tier, saturated);
+    }
+
+    private static boolean isSaturated(DataSource dataSource) {
+        if (!(dataSource instanceof HikariDataSource hikari) || hikari.isClosed()) {
+            return false;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool != null && pool.getThreadsAwaitingConnection() > 0;
+    }
+
+    private String select(RoutingTable table, ReplicaView candidates) {
+        Object affinityKey = RoutingContext.getAffinityKey();
+        if (!reportSelections) {
+            return selectFrom(table, candidates, affinityKey);
+        }
+        long start = System.nanoTime();
+        String selected = selectFrom(table, candidates, affinityKey);
+        long selectNanos = System.nanoTime() - start;
+        for (RoutingListener listener : listeners) {
+            listener.replicaSelected(selected, selectNanos);
+        }
+        return selected;
+    }
+
+    /**
+     * Admits warming replicas before balancing: each receives its ramped
+     * share of the candidates' reads directly, and the LoadBalancer picks
+     * among the warm candidates for the rest. The share follows the
+     * candidate's weight when the LoadBalancer uses weights, else it is an
+     * even split. The warm view comes from the table's subset cache, so the
+     * balancer keeps its state for it while the ramp progresses.
+     */
+    private String selectFrom(RoutingTable table, ReplicaView candidates, Object affinityKey) {
+        SlowStart ramp = this.slowStart;
+        int size = candidates.size();
+        if (ramp != null && ramp.isWarming() && size > 1 && size <= Long.SIZE) {
+            boolean weighted = loadBalancer.usesWeights();
+            Map<String, Integer> weights = table.getWeights();
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += weighted ? candidates.weight(i, weights) : 1;
+            }
+            double draw = SlowStart.draw(affinityKey);
+            double share = 0;
+            long warming = 0;
+            for (int i = 0; i < size; i++) {
+                double factor = ramp.factorOf(candidates.get(i));
+                if (factor >= 0) {
+                    warming |= 1L << i;
+                    share += factor * (weighted ? candidates.weight(i, weights) : 1) / total;
+                    if (draw < share) {
+                        return candidates.get(i);
+                    }
+                }
+            }
+            if (warming != 0) {
+                ReplicaView warm = table.getTierWithout(candidates, warming);
+                if (!warm.isEmpty()) {
+                    candidates = warm;
+                }
+            }
+        }
+        return affinityKey == null ? loadBalancer.selectFrom(candidates)
+                : loadBalancer.selectFrom(candidates, affinityKey);
+    }
+
+    private void notifyFallback(FallbackReason reason) {
+        for (RoutingListener listener : listeners) {
+            listener.fellBackToWrite(reason);
+        }
+    }
+
+    /**
+     * True for READ levels and, without an explicit level, for read-only
+     * transactions (e.g. a TransactionTemplate behind a lazy connection proxy).
+     */
+    private static boolean isReadRoute() {
+        String key = RoutingContext.get();
+        if (key == null) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return RoutingContext.READ.equals(key);
+    }
+
+    /**
+     * Returns the replicas a READ may use: healthy, within the staleness bound
+     * and, inside the read-your-writes window, caught up with the last write.
+     */
+    private ReplicaView readCandidates(RoutingTable table, long maxStaleness, long lastWrite) {
+        ReplicaView candidates = maxStaleness == RoutingContext.NO_STALENESS_BOUND
+                ? table.getHealthyReplicas()
+                : table.getReplicasWithin(maxStaleness);
+        if (lastWrite > 0 && !candidates.isEmpty()) {
+            candidates = caughtUpReplicas(candidates, lastWrite);
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the session's last write timestamp if it falls inside the
+     * read-your-writes window, or 0.
+     */
+    private long readYourWritesMark() {
+        long window = this.readYourWritesWindowMillis;
+        if (window == 0) {
+            return 0;
+        }
+        long lastWrite = SessionConsistency.getLastWriteMillis();
+        return lastWrite > 0 && System.currentTimeMillis() - lastWrite < window ? lastWrite : 0;
+    }
+
+    /**
+     * Filters candidates down to replicas known to have applied everything up to
+     * the given write. Only runs inside the read-your-writes window.
+     */
+    private ReplicaView caughtUpReplicas(ReplicaView candidates, long lastWriteMillis) {
+        List<String> caughtUp = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            String candidate = candidates.get(i);
+            Long position = replicatedUpTo.get(candidate);
+            if (position != null && position >= lastWriteMillis) {
+                caughtUp.add(candidate);
+            }
+        }
+        return candidates.subset(caughtUp);
+    }
+
+    /**
+     * Enables read-your-writes routing. For this long after a session commits a
+     * write (see {@link SessionConsistency}), its reads only go to replicas whose
+     * last lag measurement shows they have applied that write, or to WRITE if
+     * none has. Requires a replication lag probe to send any of those reads to
+     * replicas.
+     *
+     * @param window how long after a write to enforce this, or null/zero to disable
+     */
+    public void setReadYourWritesWindow(Duration window) {
+        this.readYourWritesWindowMillis = window == null || window.isNegative() ? 0 : window.toMillis();
+    }
+
+    /**
+     * @return the read-your-writes window, or zero if read-your-writes is disabled
+     */
+    public Duration getReadYourWritesWindow() {
+        return Duration.ofMillis(readYourWritesWindowMillis);
+    }
+
+    /**
+     * Resolves the key and the DataSource from the same RoutingTable, so a
+     * concurrent membership change can never pair a key with a stale map.
+     */
+    @Override
+    protected DataSource determineTargetDataSource() {
+        RoutingTable table = routingTable.get();
+        String key = determineCurrentLookupKey(table);
+        DataSource dataSource = table.getDataSource(key);
+        if (dataSource == null) {
+            dataSource = table.getWriteDataSource();
+        }
+        if (dataSource == null) {
+            throw new IllegalStateException("Cannot determine target DataSource for lookup key [" + key + "]");
+        }
+        return dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return openConnection(null, null, false);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return openConnection(username, password, true);
+    }
+
+    /**
+     * Obtains a connection from the routed DataSource, failing over to other
+     * replicas and then WRITE if that is enabled and a READ connection cannot
+     * be obtained.
+     */
+    private Connection openConnection(String username, String password, boolean withCredentials)
+            throws SQLException {
+        long start = failoverEnabled ? System.nanoTime() : 0;
+        RoutingTable table = routingTable.get();
+        String key = determineCurrentLookupKey(table);
+        DataSource dataSource = table.getDataSource(key);
+        if (dataSource == null) {
+            key = RoutingContext.WRITE;
+            dataSource = table.getWriteDataSource();
+        }
+        if (dataSource == null) {
+            throw new IllegalStateException("Cannot determine target DataSource for lookup key [" + key + "]");
+        }
+
+        try {
+            return connect(key, dataSource, username, password, withCredentials);
+        } catch (SQLException ex) {
+            if (!failoverEnabled || RoutingContext.WRITE.equals(key)
+                    || !isReadRoute()) {
+                throw ex;
+            }
+            return failover(key, ex, start, username, password, withCredentials);
+        }
+    }
+
+    /**
+     * Retries a failed READ acquisition on other candidates from the
+     * LoadBalancer, skipping replicas already tried, then on WRITE. No new
+     * attempt starts once the deadline, measured from the original request,
+     * has passed; an attempt already in progress is not interrupted.
+     */
+    private Connection failover(String failedKey, SQLException failure, long start,
+            String username, String password, boolean withCredentials) throws SQLException {
+        long deadline = start + failoverDeadlineNanos;
+        long maxStaleness = RoutingContext.getMaxStalenessMillis();
+        long lastWrite = readYourWritesMark();
+        Set<String> tried = new HashSet<>();
+        tried.add(failedKey);
+        String previousKey = failedKey;
+        int retries = failoverMaxRetries;
+
+        while (System.nanoTime() - deadline < 0) {
+            // Re-read the table: a circuit breaker may have just removed the failed replica
+            RoutingTable table = routingTable.get();
+            String key = null;
+            if (retries > 0) {
+                ReplicaView remaining = untried(readCandidates(table, maxStaleness, lastWrite), tried);
+                if (!remaining.isEmpty() && table.isTiered()) {
+                    // Fail over within the nearest tier first
+                    remaining = table.getTiersOf(remaining).get(0);
+                }
+                if (!remaining.isEmpty()) {
+                    key = select(table, remaining);
+                    retries--;
+                }
+            }
+            DataSource dataSource = key == null ? null : table.getDataSource(key);
+            if (dataSource == null) {
+                key = RoutingContext.WRITE;
+                dataSource = table.getWriteDataSource();
+            }
+            if (dataSource == null) {
+                break;
+            }
+
+            log.warn("Could not obtain a connection from [{}], failing over to [{}]: {}",
+                    previousKey, key, failure.getMessage());
+            if (RoutingContext.WRITE.equals(key)) {
+                notifyFallback(FallbackReason.FAILOVER);
+            }
+            try {
+                return connect(key, dataSource, username, password, withCredentials);
+            } catch (SQLException ex) {
+                failure.addSuppressed(ex);
+                if (RoutingContext.WRITE.equals(key)) {
+                    break;
+                }
+                tried.add(key);
+                previousKey = key;
+            }
+        }
+        throw failure;
+    }
+
+    private static ReplicaView untried(ReplicaView candidates, Set<String> tried) {
+        List<String> remaining = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            String candidate = candidates.get(i);
+            if (!tried.contains(candidate)) {
+                remaining.add(candidate);
+            }
         }
-        return readDataSources.get(key);
+        return candidates.subset(remaining);
+    }
+
+    /**
+     * Obtains a connection from the given DataSource and reports its
+     * acquisition to the listeners. The connection is only wrapped when a
+     * listener needs its release or failures (see {@link RoutingListener#connectionReleased});
+     * otherwise the pooled connection is returned as is.
+     */
+    private Connection connect(String key, DataSource dataSource, String username, String password,
+            boolean withCredentials) throws SQLException {
+        RoutingListener[] current = this.listeners;
+        if (current.length == 0) {
+            return withCredentials ? dataSource.getConnection(username, password) : dataSource.getConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = withCredentials
+                    ? dataSource.getConnection(username, password)
+                    : dataSource.getConnection();
+        } catch (SQLException ex) {
+            for (RoutingListener listener : current) {
+                listener.connectionFailed(key, ex);
+            }
+            throw ex;
+        }
+        long acquiredAt = System.nanoTime();
+        for (RoutingListener listener : current) {
+            listener.connectionAcquired(key, acquiredAt - start);
+        }
+        if (!(RoutingContext.WRITE.equals(key) ? wrapWriteConnections : wrapReadConnections)) {
+            return connection;
+        }
+        return TrackedConnection.wrap(connection, key, acquiredAt, current, reportStatementFailures);
+    }
+
+    /**
+     * Enables failover for READ connections: when the selected replica cannot
+     * hand out a connection, up to {@code maxRetries} other replicas are tried,
+     * then WRITE.
+     *
+     * @param maxRetries number of additional replicas to try before WRITE
+     * @param deadline   time after the original request when no further attempt is started
+     */
+    public void setFailover(int maxRetries, Duration deadline) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries cannot be negative");
+        }
+        if (deadline == null || deadline.isNegative()) {
+            throw new IllegalArgumentException("deadline must not be null or negative");
+        }
+        this.failoverMaxRetries = maxRetries;
+        this.failoverDeadlineNanos = deadline.toNanos();
+        this.failoverEnabled = true;
+    }
+
+    public void disableFailover() {
+        this.failoverEnabled = false;
+    }
+
+    /**
+     * Also reports failures of statements to {@link RoutingListener#connectionFailed}.
+     * Failures of {@code getConnection()} and of the connection itself are
+     * always reported; statements are only wrapped in a proxy for this, so it
+     * is off by default.
+     */
+    public void setReportStatementFailures(boolean reportStatementFailures) {
+        this.reportStatementFailures = reportStatementFailures;
+    }
+
+    public boolean isReportStatementFailures() {
+        return reportStatementFailures;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * Replaces the LoadBalancer. A balancer that implements {@link RoutingListener}
+     * is registered as a listener, and the previous one is unregistered.
+     */
+    public void setLoadBalancer(LoadBalancer loadBalancer) {
+        LoadBalancer previous = this.loadBalancer;
+        if (previous instanceof RoutingListener listener) {
+            removeRoutingListener(listener);
+        }
+        this.loadBalancer = loadBalancer;
+        Map<String, Integer> weights = routingTable.get().getWeights();
+        if (loadBalancer != null && !weights.isEmpty()) {
+            loadBalancer.updateWeights(weights);
+        }
+        if (loadBalancer instanceof RoutingListener listener) {
+            addRoutingListener(listener);
+        }
+    }
+
+    /**
+     * Installs a passive failure detector: it is registered as a listener and
+     * consulted for half-open trial requests on every unrestricted READ lookup.
+     *
+     * @param detector the detector, or null to remove the current one
+     */
+    public void setPassiveFailureDetector(PassiveFailureDetector detector) {
+        PassiveFailureDetector previous = this.failureDetector;
+        if (previous != null) {
+            removeRoutingListener(previous);
+        }
+        this.failureDetector = detector;
+        if (detector != null) {
+            addRoutingListener(detector);
+        }
+    }
+
+    public PassiveFailureDetector getPassiveFailureDetector() {
+        return failureDetector;
+    }
+
+    /**
+     * Installs slow start: replicas added or marked healthy from now on
+     * receive a growing share of reads over its window. It is registered as
+     * a listener; READ selections admit warming replicas by their current
+     * share before the LoadBalancer picks among the warm ones, so every
+     * LoadBalancer honours it. A previous instance is stopped.
+     *
+     * @param slowStart the ramp to apply, or null to disable
+     */
+    public void setSlowStart(SlowStart slowStart) {
+        SlowStart previous = this.slowStart;
+        if (previous != null) {
+            removeRoutingListener(previous);
+            previous.shutdown();
+        }
+        this.slowStart = slowStart;
+        if (slowStart != null) {
+            addRoutingListener(slowStart);
+        }
+    }
+
+    public SlowStart getSlowStart() {
+        return slowStart;
+    }
+
+    /**
+     * Registers a listener and immediately hands it the current routing table.
+     */
+    public void addRoutingListener(RoutingListener listener) {
+        listenersLock.lock();
+        try {
+            RoutingListener[] current = this.listeners;
+            RoutingListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            setListeners(updated);
+            listener.routingTableChanged(routingTable.get());
+        } finally {
+            listenersLock.unlock();
+        }
+    }
+
+    public void removeRoutingListener(RoutingListener listener) {
+        listenersLock.lock();
+        try {
+            setListeners(Arrays.stream(this.listeners)
+                    .filter(l -> l != listener)
+                    .toArray(RoutingListener[]::new));
+        } finally {
+            listenersLock.unlock();
+        }
+    }
+
+    private void setListeners(RoutingListener[] updated) {
+        boolean reads = false;
+        boolean writes = false;
+        boolean selections = false;
+        for (RoutingListener listener : updated) {
+            boolean tracking = overrides(listener, "connectionReleased", String.class, long.class)
+                    || overrides(listener, "connectionFailed", String.class, SQLException.class);
+            reads |= tracking;
+            writes |= tracking && listener.observesWriteConnections();
+            selections |= overrides(listener, "replicaSelected", String.class, long.class);
+        }
+        this.wrapReadConnections = reads;
+        this.wrapWriteConnections = writes;
+        this.reportSelections = selections;
+        this.listeners = updated;
+    }
+
+    private static boolean overrides(RoutingListener listener, String method, Class<?>... parameterTypes) {
+        try {
+            return listener.getClass().getMethod(method, parameterTypes).getDeclaringClass() != RoutingListener.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the currently published routing table.
+     */
+    public RoutingTable getRoutingTable() {
+        return routingTable.get();
+    }
+
+    public Map<String, DataSource> getReadDataSources() {
+        return routingTable.get().getReadDataSources();
+    }
+
+    public List<String> getReadDataSourceKeys() {
+        return routingTable.get().getReadKeys().asList();
+    }
+
+    public void setReadDataSources(Map<String, DataSource> readDataSources) {
+        swap(table -> table.withReadDataSources(readDataSources));
+        RoutingTable next = routingTable.get();
+        log.info("Read DataSources set to {} (routing table v{})", next.getReadKeys(), next.getVersion());
+    }
+
+    public DataSource getDataSource(String key) {
+        return routingTable.get().getDataSource(key);
     }
 
     // Health Check Management
     public void markUnhealthy(String key) {
-        if (unhealthyKeys.add(key)) {
+        RoutingTable previous = swap(table -> table.withUnhealthy(key));
+        if (previous.getReadDataSources().containsKey(key) && !previous.isUnhealthy(key)) {
             log.warn("Marking DataSource [{}] as UNHEALTHY", key);
+            notifyHealthChanged(key, false);
         }
     }
 
     public void markHealthy(String key) {
-        if (unhealthyKeys.remove(key)) {
+        RoutingTable previous = swap(table -> table.withHealthy(key));
+        if (previous.isUnhealthy(key)) {
             log.info("Marking DataSource [{}] as HEALTHY", key);
+            notifyHealthChanged(key, true);
         }
     }
 
+    private void notifyHealthChanged(String key, boolean healthy) {
+        for (RoutingListener listener : listeners) {
+            listener.healthChanged(key, healthy);
+        }
+    }
+
+    /**
+     * Records the replication lag measured for a replica. Replicas lagging
+     * more than the configured maximum leave the default rotation but remain
+     * available to reads with a larger staleness bound.
+     *
+     * @param lag measured lag, or null if it could not be determined
+     */
+    public void updateReplicationLag(String key, Duration lag) {
+        updateReplicationLag(key, lag, Duration.ZERO);
+    }
+
+    /**
+     * Records the replication lag measured for a replica, see
+     * {@link #updateReplicationLag(String, Duration)}.
+     * <p>
+     * For read-your-writes the replica is only trusted to have applied writes
+     * older than the lag plus the probe granularity. That margin also covers a
+     * lag of zero, which MySQL and PostgreSQL report once the replica has
+     * applied everything it has <em>received</em>: a caught-up replica is
+     * trusted up to the granularity before the measurement, not beyond it.
+     *
+     * @param lag         measured lag, or null if it could not be determined
+     * @param granularity resolution of the measurement, e.g. one second for
+     *                    {@code Seconds_Behind_Source}
+     */
+    public void updateReplicationLag(String key, Duration lag, Duration granularity) {
+        Long lagMillis = lag == null ? null : lag.toMillis();
+        if (lagMillis == null || lagMillis == Long.MAX_VALUE) {
+            replicatedUpTo.remove(key);
+        } else if (lagMillis >= 0) {
+            long margin = granularity == null || granularity.isNegative() ? 0 : granularity.toMillis();
+            replicatedUpTo.put(key, System.currentTimeMillis() - lagMillis - margin);
+        }
+        RoutingTable previous = swap(table -> table.withReplicationLag(key, lagMillis));
+        long limit = previous.getMaxReplicationLagMillis();
+        if (limit == RoutingTable.NO_LAG_LIMIT) {
+            return;
+        }
+        Long previousLag = previous.getReplicationLagMillis().get(key);
+        boolean wasLagging = previousLag != null && previousLag > limit;
+        boolean isLagging = lagMillis != null && lagMillis > limit;
+        if (!wasLagging && isLagging) {
+            log.warn("DataSource [{}] replication lag {}ms exceeds {}ms, removing from rotation", key, lagMillis, limit);
+        } else if (wasLagging && !isLagging) {
+            log.info("DataSource [{}] replication lag back within {}ms, returning to rotation", key, limit);
+        }
+    }
+
+    /**
+     * Sets the replication lag above which replicas leave the default rotation.
+     *
+     * @param maxLag the limit, or null to disable lag-based exclusion
+     */
+    public void setMaxReplicationLag(Duration maxLag) {
+        long limit = maxLag == null ? RoutingTable.NO_LAG_LIMIT : maxLag.toMillis();
+        swap(table -> table.withMaxReplicationLag(limit));
+    }
+
+    /**
+     * Returns the current healthy replica snapshot.
+     */
+    public ReplicaView getHealthyReplicas() {
+        return routingTable.get().getHealthyReplicas();
+    }
+
     // Dynamic Management
-    // Weights are delegated to LoadBalancer
+    // Membership and weight changes are a single RoutingTable swap. The views
+    // handed to the LoadBalancer carry that table's weights; weights are also
+    // pushed to it for callers that select from plain key lists.
 
-    public synchronized void addReadDataSource(String key, DataSource dataSource, int weight) {
+    public void addReadDataSource(String key, DataSource dataSource, int weight) {
         log.info("Adding Read DataSource [{}] with weight [{}]", key, weight);
-        this.readDataSources.put(key, dataSource);
-        this.readDataSourceKeys.add(key);
-        refreshRouting();
+        swap(table -> table.withReadDataSource(key, dataSource, weight));
+        publishWeights();
+    }
 
-        // Notify LoadBalancer about new weight
-        if (loadBalancer != null) {
-            loadBalancer.updateWeights(Map.of(key, weight)); // This merges usually
-        }
+    /**
+     * Removes a replica and drains its pool within the drain timeout.
+     *
+     * @see #drainReadDataSource(String, Duration)
+     */
+    public ReplicaDrainer.Drain removeReadDataSource(String key) {
+        return drainReadDataSource(key, drainTimeout);
     }
 
-    public synchronized void removeReadDataSource(String key) {
+    /**
+     * Removes a replica from routing in a single table swap, then closes its
+     * pool once the connections in use have been returned, or at the deadline.
+     *
+     * @param timeout how long in-flight work may keep its connections
+     * @return the drain, or null if no replica was registered under the key
+     */
+    public ReplicaDrainer.Drain drainReadDataSource(String key, Duration timeout) {
         log.info("Removing Read DataSource [{}]", key);
-        DataSource ds = this.readDataSources.remove(key);
-        this.readDataSourceKeys.remove(key);
-        this.unhealthyKeys.remove(key);
-
-        // Close if managed
-        if (ds instanceof com.zaxxer.hikari.HikariDataSource) {
-            ((com.zaxxer.hikari.HikariDataSource) ds).close();
-        } else if (ds instanceof java.io.Closeable) {
-            try {
-                ((java.io.Closeable) ds).close();
-            } catch (java.io.IOException e) {
-                log.warn("Error closing DataSource [{}]", key, e);
-            }
+        RoutingTable previous = swap(table -> table.withoutReadDataSource(key));
+        DataSource ds = previous.getReadDataSources().get(key);
+        replicatedUpTo.remove(key);
+        publishWeights();
+        return ds == null ? null : drainer.drain(key, ds, timeout);
+    }
+
+    /**
+     * Sets how long {@link #removeReadDataSource(String)} waits for active
+     * connections before closing a replica's pool. Zero closes it right away.
+     */
+    public void setDrainTimeout(Duration timeout) {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be null or negative");
         }
+        this.drainTimeout = timeout;
+    }
 
-        refreshRouting();
+    public ReplicaDrainer getDrainer() {
+        return drainer;
     }
 
-    private void refreshRouting() {
-        Map<Object, Object> targetDataSources = new HashMap<>();
-        if (writeDataSource != null) {
-            targetDataSources.put("WRITE", writeDataSource);
+    /**
+     * Force-closes replicas that are still draining and stops the drainer
+     * thread, so their pools do not outlive the application context.
+     */
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdown();
+        SlowStart current = this.slowStart;
+        if (current != null) {
+            current.shutdown();
         }
-        targetDataSources.putAll(readDataSources);
+    }
 
-        super.setTargetDataSources(targetDataSources);
-        if (writeDataSource != null) {
-            super.setDefaultTargetDataSource(writeDataSource);
+    public void updateWeights(Map<String, Integer> newWeights) {
+        swap(table -> table.withWeights(newWeights));
+        publishWeights();
+    }
+
+    /**
+     * Assigns replicas to tiers, e.g. by availability zone. READs use the
+     * lowest tier that has a healthy, unsaturated replica, then the next
+     * one, and finally WRITE. Keys not yet registered are ignored.
+     *
+     * @param newTiers tier per replica key; lower is preferred, unset is 0
+     */
+    public void updateTiers(Map<String, Integer> newTiers) {
+        swap(table -> table.withTiers(newTiers));
+        log.info("Replica tiers set to {}", routingTable.get().getTiers());
+    }
+
+    /**
+     * Applies a change to the routing table atomically and hands listeners
+     * exactly the table this change produced, even under concurrent swaps.
+     *
+     * @return the table the change was applied to
+     */
+    private RoutingTable swap(UnaryOperator<RoutingTable> change) {
+        RoutingTable previous;
+        RoutingTable next;
+        do {
+            previous = routingTable.get();
+            next = change.apply(previous);
+        } while (next != previous && !routingTable.compareAndSet(previous, next));
+        if (next != previous) {
+            for (RoutingListener listener : listeners) {
+                listener.routingTableChanged(next);
+            }
         }
-        super.afterPropertiesSet();
+        return previous;
     }
 
-    public void updateWeights(Map<String, Integer> newWeights) {
+    private void publishWeights() {
         if (loadBalancer != null) {
-            loadBalancer.updateWeights(newWeights);
+            loadBalancer.updateWeights(routingTable.get().getWeights());
         }
     }
 
@@ -0,0 +1,28 @@
+package io.github.krongdev.routemate.core.routing;
+
+/**
+ * Why a READ was routed to the WRITE DataSource.
+ */
+public enum FallbackReason {
+
+    /**
+     * No healthy replica within the staleness bound.
+     */
+    NO_HEALTHY_REPLICA,
+
+    /**
+     * Inside the read-your-writes window no replica has caught up with the
+     * session's last write.
+     */
+    NOT_CAUGHT_UP,
+
+    /**
+     * Replicas could not hand out a connection and failover reached WRITE.
+     */
+    FAILOVER,
+
+    /**
+     * Every healthy replica in every tier had callers waiting on its pool.
+     */
+    SATURATED
+}
@@ -0,0 +1,69 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Lazy connection proxy in front of a {@link DataSourceRouter}.
+ * <p>
+ * Connections handed out are proxies; replica selection and the physical
+ * {@code getConnection()} are deferred until the first statement is created,
+ * so a transaction that never runs SQL holds no pool slot. Read-only state set
+ * on the proxy before then (e.g. by the transaction manager) routes the
+ * connection to a replica when no explicit routing level is active.
+ */
+public class LazyRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    private final DataSourceRouter router;
+
+    public LazyRoutingDataSource(DataSourceRouter router) {
+        this(router, router);
+    }
+
+    /**
+     * @param target DataSource in front of the router that connections which
+     *               are not read-only at first use come from, e.g. a
+     *               {@link StatementRoutingDataSource}
+     */
+    public LazyRoutingDataSource(DataSourceRouter router, DataSource target) {
+        super(target);
+        this.router = router;
+        setReadOnlyDataSource(new ReadRoutingDataSource(router));
+    }
+
+    public DataSourceRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Used for connections that are read-only at first use: routes them as
+     * READ unless a routing level is already in effect.
+     */
+    private static final class ReadRoutingDataSource extends DelegatingDataSource {
+
+        private ReadRoutingDataSource(DataSourceRouter router) {
+            super(router);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (RoutingContext.get() != null) {
+                return super.getConnection();
+            }
+            return RoutingContext.callWith(RoutingContext.READ, null, null, super::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (RoutingContext.get() != null) {
+                return super.getConnection(username, password);
+            }
+            return RoutingContext.callWith(RoutingContext.READ, null, null,
+                    () -> super.getConnection(username, password));
+        }
+    }
+}
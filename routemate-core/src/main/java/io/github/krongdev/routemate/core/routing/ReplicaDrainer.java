@@ -0,0 +1,242 @@
+package io.github.krongdev.routemate.core.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Closes the pools of removed replicas once their connections are returned.
+ * <p>
+ * The router first takes a replica out of the routing table, so no new reads
+ * are sent to it. The drainer then evicts the idle connections, waits until
+ * the pool has no active connections and closes it. Connections still in use
+ * when the deadline passes are closed with the pool. Only HikariCP reports
+ * active connections; other {@link Closeable} DataSources are closed right
+ * away.
+ * <p>
+ * The last drain of each replica key is kept for status reporting.
+ */
+public class ReplicaDrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDrainer.class);
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    public enum State {
+        /** Removed from routing, waiting for active connections to be returned. */
+        DRAINING,
+        /** Closed after every connection was returned. */
+        CLOSED,
+        /** Closed at the deadline with connections still in use. */
+        FORCE_CLOSED
+    }
+
+    private final Map<String, Drain> drains = new ConcurrentHashMap<>();
+    private final ReentrantLock executorLock = new ReentrantLock();
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Starts draining a DataSource that is no longer routed to.
+     *
+     * @param timeout how long to wait for active connections before closing anyway
+     */
+    public Drain drain(String key, DataSource dataSource, Duration timeout) {
+        Duration limit = timeout == null || timeout.isNegative() ? Duration.ZERO : timeout;
+        Drain drain = new Drain(key, dataSource, limit);
+        drains.put(key, drain);
+        if (dataSource instanceof HikariDataSource hikari && !hikari.isClosed() && !limit.isZero()) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                // Idle connections close now; busy ones are retired when they are returned
+                pool.softEvictConnections();
+            }
+            log.info("Draining DataSource [{}] for up to {} ms ({} active connections)", key, limit.toMillis(),
+                    drain.getActiveConnections());
+            drain.task = executor().scheduleWithFixedDelay(drain::poll, 0, POLL_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            drain.close(drain.getActiveConnections() > 0 ? State.FORCE_CLOSED : State.CLOSED);
+        }
+        return drain;
+    }
+
+    /**
+     * Returns the current or last drain of the given replica key, or null.
+     */
+    public Drain getDrain(String key) {
+        return drains.get(key);
+    }
+
+    public List<Drain> getDrains() {
+        return new ArrayList<>(drains.values());
+    }
+
+    /**
+     * Closes every DataSource still draining, without waiting.
+     */
+    public void shutdown() {
+        for (Drain drain : drains.values()) {
+            if (drain.getState() == State.DRAINING) {
+                drain.close(State.FORCE_CLOSED);
+            }
+        }
+        ScheduledExecutorService current = this.executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private ScheduledExecutorService executor() {
+        ScheduledExecutorService current = this.executor;
+        if (current == null) {
+            executorLock.lock();
+            try {
+                current = this.executor;
+                if (current == null) {
+                    current = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "routemate-drainer");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    this.executor = current;
+                }
+            } finally {
+                executorLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drain progress of one removed replica.
+     */
+    public static final class Drain {
+        private final String key;
+        private final DataSource dataSource;
+        private final Instant startedAt;
+        private final Instant deadline;
+        private final long deadlineNanos;
+        private final CompletableFuture<State> completion = new CompletableFuture<>();
+        private volatile State state = State.DRAINING;
+        private volatile int activeConnections;
+        private volatile ScheduledFuture<?> task;
+        private final ReentrantLock closeLock = new ReentrantLock();
+
+        private Drain(String key, DataSource dataSource, Duration timeout) {
+            this.key = key;
+            this.dataSource = dataSource;
+            this.startedAt = Instant.now();
+            this.deadline = startedAt.plus(timeout);
+            this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+            this.activeConnections = countActive();
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Connections still in use, as of the last check; 0 once closed
+         * unless the pool was closed at the deadline.
+         */
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        /**
+         * Completes with the final state once the DataSource is closed.
+         */
+        public CompletableFuture<State> getCompletion() {
+            return completion;
+        }
+
+        private void poll() {
+            if (state != State.DRAINING) {
+                cancelTask();
+                return;
+            }
+            int active = countActive();
+            activeConnections = active;
+            if (active == 0) {
+                close(State.CLOSED);
+            } else if (System.nanoTime() - deadlineNanos >= 0) {
+                log.warn("DataSource [{}] still has {} active connections at the drain deadline; closing anyway",
+                        key, active);
+                close(State.FORCE_CLOSED);
+            }
+        }
+
+        private void cancelTask() {
+            ScheduledFuture<?> current = this.task;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        private int countActive() {
+            if (dataSource instanceof HikariDataSource hikari && !hikari.isClosed()) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool != null ? pool.getActiveConnections() : 0;
+            }
+            return 0;
+        }
+
+        private void close(State finalState) {
+            closeLock.lock();
+            try {
+                closeOnce(finalState);
+            } finally {
+                closeLock.unlock();
+            }
+        }
+
+        private void closeOnce(State finalState) {
+            if (completion.isDone()) {
+                return;
+            }
+            cancelTask();
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            } else if (dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    log.warn("Error closing DataSource [{}]", key, e);
+                }
+            }
+            state = finalState;
+            log.info("DataSource [{}] {}", key, finalState == State.CLOSED ? "drained and closed" : "force-closed");
+            completion.complete(finalState);
+        }
+    }
+}
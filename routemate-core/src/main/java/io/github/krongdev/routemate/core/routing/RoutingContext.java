@@ -1,49 +1,119 @@
 package io.github.krongdev.routemate.core.routing;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 /**
  * Holds the current routing context (Read vs Write, or specific DataSource key)
  * for the current thread using ThreadLocal.
+ * <p>
+ * Each level may also carry a maximum staleness bound, which limits READ
+ * routing to replicas whose replication lag is within that bound.
+ * <p>
+ * Levels are immutable frames linked to their parent, so pushing a plain
+ * READ or WRITE level onto an empty context does not allocate. On JDK 21+
+ * {@link #runWith(String, Runnable)} and {@link #callWith(String, Callable)}
+ * bind the level to a {@code ScopedValue} instead of the ThreadLocal, which
+ * suits virtual threads; on older JDKs, or when the
+ * {@code routemate.routing-context.scoped-values} system property is
+ * {@code false}, they fall back to a ThreadLocal push and pop.
  */
 public class RoutingContext {
 
-    private static final ThreadLocal<Deque<String>> CONTEXT = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<Frame> CONTEXT = new ThreadLocal<>();
 
     public static final String READ = "READ";
     public static final String WRITE = "WRITE";
 
+    /**
+     * Marker for "no staleness bound".
+     */
+    public static final long NO_STALENESS_BOUND = -1;
+
     public static void set(String dataSourceKey) {
-        if (dataSourceKey == null || dataSourceKey.trim().isEmpty()) {
-            throw new IllegalArgumentException("dataSourceKey cannot be null or empty");
-        }
-        CONTEXT.get().push(dataSourceKey);
+        set(dataSourceKey, null);
+    }
+
+    /**
+     * Pushes a routing key with a maximum staleness bound.
+     *
+     * @param maxStaleness maximum tolerated replication lag, or null for the router default
+     */
+    public static void set(String dataSourceKey, Duration maxStaleness) {
+        CONTEXT.set(Frame.of(dataSourceKey, toMillis(dataSourceKey, maxStaleness), current()));
+    }
+
+    /**
+     * Pushes a routing key with a maximum staleness bound and an affinity key.
+     * A {@link io.github.krongdev.routemate.core.balancer.ConsistentHashLoadBalancer}
+     * sends READs with the same affinity key (e.g. a customer id) to the same
+     * replica, keeping its caches warm for that key.
+     *
+     * @param maxStaleness maximum tolerated replication lag, or null for the router default
+     * @param affinityKey  key whose reads should stick to one replica, or null
+     */
+    public static void set(String dataSourceKey, Duration maxStaleness, Object affinityKey) {
+        CONTEXT.set(Frame.of(dataSourceKey, toMillis(dataSourceKey, maxStaleness), affinityKey, current()));
     }
 
     public static String get() {
-        Deque<String> stack = CONTEXT.get();
-        return stack.isEmpty() ? null : stack.peek();
+        Frame frame = current();
+        return frame == null ? null : frame.key;
+    }
+
+    /**
+     * Returns the staleness bound of the current level in milliseconds, or
+     * {@link #NO_STALENESS_BOUND} if none was set.
+     */
+    public static long getMaxStalenessMillis() {
+        Frame frame = current();
+        return frame == null ? NO_STALENESS_BOUND : frame.maxStalenessMillis;
+    }
+
+    /**
+     * Returns the affinity key of the current level, or null if none was set.
+     */
+    public static Object getAffinityKey() {
+        Frame frame = current();
+        return frame == null ? null : frame.affinityKey;
     }
 
+    /**
+     * Pops the innermost level pushed with {@link #set(String)}. A level bound
+     * by {@link #runWith(String, Runnable)} ends with its task instead, so
+     * this does nothing while such a level is the current one.
+     */
     public static void clear() {
-        Deque<String> stack = CONTEXT.get();
-        if (!stack.isEmpty()) {
-            stack.pop();
+        Frame top = CONTEXT.get();
+        if (top == null) {
+            return;
         }
-        // If stack is empty after pop, remove threadlocal
-        if (stack.isEmpty()) {
-            CONTEXT.remove();
+        Frame scoped = ScopedFrames.get();
+        if (scoped != null && scoped.depth > top.depth) {
+            return;
         }
+        // Setting null rather than removing keeps the thread's map entry, so
+        // the next set() does not allocate a new one
+        CONTEXT.set(top.parent);
     }
 
     /**
      * Returns a snapshot of the current context stack for debugging or logging.
-     * 
+     *
      * @return A copy of the current stack.
      */
     public static Deque<String> getStackSnapshot() {
-        return new ArrayDeque<>(CONTEXT.get());
+        Deque<String> snapshot = new ArrayDeque<>();
+        for (Frame frame = current(); frame != null; frame = frame.parent) {
+            snapshot.addLast(frame.key);
+        }
+        return snapshot;
     }
 
     /**
@@ -57,14 +127,422 @@ public class RoutingContext {
         return new ContextToken(key);
     }
 
+    /**
+     * Same as {@link #use(String)} with a maximum staleness bound.
+     */
+    public static ContextToken use(String key, Duration maxStaleness) {
+        return new ContextToken(key, maxStaleness);
+    }
+
+    /**
+     * Same as {@link #use(String)} with an affinity key, e.g.
+     * {@code RoutingContext.use(RoutingContext.READ, customerId)}.
+     *
+     * @see #set(String, Duration, Object)
+     */
+    public static ContextToken use(String key, Object affinityKey) {
+        return new ContextToken(key, null, affinityKey);
+    }
+
+    /**
+     * Runs a task with the given routing key pushed for its duration.
+     * <p>
+     * Uses a {@code ScopedValue} binding when available, so the level itself
+     * is never stored in the ThreadLocal.
+     */
+    public static void runWith(String key, Runnable task) {
+        runWith(key, null, task);
+    }
+
+    /**
+     * Same as {@link #runWith(String, Runnable)} with a maximum staleness bound.
+     */
+    public static void runWith(String key, Duration maxStaleness, Runnable task) {
+        runWith(Frame.of(key, toMillis(key, maxStaleness), current()), task);
+    }
+
+    private static void runWith(Frame frame, Runnable task) {
+        if (!ScopedFrames.AVAILABLE) {
+            Frame previous = CONTEXT.get();
+            CONTEXT.set(frame);
+            try {
+                task.run();
+            } finally {
+                reset(previous);
+            }
+            return;
+        }
+        Frame previous = CONTEXT.get();
+        try {
+            ScopedFrames.run(frame, task);
+        } finally {
+            // Levels set() inside the task and never cleared must not outlive it
+            if (CONTEXT.get() != previous) {
+                reset(previous);
+            }
+        }
+    }
+
+    /**
+     * Calls a task with the given routing key pushed for its duration.
+     *
+     * @see #runWith(String, Runnable)
+     */
+    public static <V> V callWith(String key, Callable<V> task) throws Exception {
+        return callWith(key, null, task);
+    }
+
+    /**
+     * Same as {@link #callWith(String, Callable)} with a maximum staleness bound.
+     */
+    public static <V> V callWith(String key, Duration maxStaleness, Callable<V> task) throws Exception {
+        return callWith(key, maxStaleness, null, task::call);
+    }
+
+    /**
+     * Same as {@link #callWith(String, Callable)} with a maximum staleness
+     * bound and an affinity key (see {@link #set(String, Duration, Object)}),
+     * for tasks that throw a specific checked exception, e.g.
+     * {@code callWith(READ, null, null, dataSource::getConnection)}.
+     */
+    public static <V, X extends Throwable> V callWith(String key, Duration maxStaleness, Object affinityKey,
+            RoutedCall<V, X> task) throws X {
+        // Carrier.call changed signature across JDK releases; run() did not
+        Invocation<V, X> invocation = new Invocation<>(task);
+        runWith(Frame.of(key, toMillis(key, maxStaleness), affinityKey, current()), invocation);
+        return invocation.result();
+    }
+
+    /**
+     * A task for {@link #callWith(String, Duration, Object, RoutedCall)}.
+     */
+    @FunctionalInterface
+    public interface RoutedCall<V, X extends Throwable> {
+        V call() throws X;
+    }
+
+    /**
+     * Runs a {@link RoutedCall} as a Runnable and hands back its outcome.
+     */
+    private static final class Invocation<V, X extends Throwable> implements Runnable {
+        private final RoutedCall<V, X> task;
+        private V result;
+        private Throwable failure;
+
+        private Invocation(RoutedCall<V, X> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = task.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V result() throws X {
+            if (failure != null) {
+                // Either X or unchecked, as task.call() declares nothing else
+                throw (X) failure;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns true if {@link #runWith(String, Runnable)} binds levels to a
+     * {@code ScopedValue} on this JVM.
+     */
+    public static boolean isScopedValueBacked() {
+        return ScopedFrames.AVAILABLE;
+    }
+
+    /**
+     * Captures the current thread's routing stack, together with its
+     * read-your-writes mark, so it can be restored on another thread.
+     */
+    public static Snapshot capture() {
+        Frame frame = current();
+        long lastWrite = SessionConsistency.getLastWriteMillis();
+        if (frame == null) {
+            // Do not leave an empty entry behind on this thread
+            CONTEXT.remove();
+            if (lastWrite == 0) {
+                return Snapshot.EMPTY;
+            }
+        }
+        return new Snapshot(frame, lastWrite);
+    }
+
+    /**
+     * Wraps a task so it runs with the routing context of the calling thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            try (Scope ignored = snapshot.restore()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so it runs with the routing context of the calling thread.
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            try (Scope ignored = snapshot.restore()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * Wraps a supplier, e.g. for {@code CompletableFuture.supplyAsync}, so it
+     * runs with the routing context of the calling thread.
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        Snapshot snapshot = capture();
+        return () -> {
+            try (Scope ignored = snapshot.restore()) {
+                return supplier.get();
+            }
+        };
+    }
+
+    /**
+     * The innermost level, from the ThreadLocal or the scoped binding,
+     * whichever was pushed last.
+     */
+    private static Frame current() {
+        Frame local = CONTEXT.get();
+        if (!ScopedFrames.AVAILABLE) {
+            return local;
+        }
+        Frame scoped = ScopedFrames.get();
+        if (scoped == null) {
+            return local;
+        }
+        return local != null && local.depth > scoped.depth ? local : scoped;
+    }
+
+    private static void reset(Frame frame) {
+        if (frame == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(frame);
+        }
+    }
+
+    private static long toMillis(String dataSourceKey, Duration maxStaleness) {
+        if (dataSourceKey == null || dataSourceKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("dataSourceKey cannot be null or empty");
+        }
+        if (maxStaleness != null && maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("maxStaleness cannot be negative");
+        }
+        return maxStaleness == null ? NO_STALENESS_BOUND : maxStaleness.toMillis();
+    }
+
+    /**
+     * An immutable routing stack. Frames are never modified, so capturing
+     * one does not copy anything.
+     */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(null, 0);
+
+        private final Frame frame; // innermost level, or null
+        private final long lastWriteMillis;
+
+        private Snapshot(Frame frame, long lastWriteMillis) {
+            this.frame = frame;
+            this.lastWriteMillis = lastWriteMillis;
+        }
+
+        /**
+         * Installs this snapshot on the current thread until the returned
+         * scope is closed, which puts back whatever was there before.
+         */
+        public Scope restore() {
+            Frame previous = CONTEXT.get();
+            long previousWrite = SessionConsistency.getLastWriteMillis();
+            reset(frame);
+            SessionConsistency.restore(lastWriteMillis);
+            return new Scope(previous, previousWrite);
+        }
+    }
+
+    /**
+     * Undoes {@link Snapshot#restore()}.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Frame previous;
+        private final long previousWriteMillis;
+
+        private Scope(Frame previous, long previousWriteMillis) {
+            this.previous = previous;
+            this.previousWriteMillis = previousWriteMillis;
+        }
+
+        @Override
+        public void close() {
+            reset(previous);
+            SessionConsistency.restore(previousWriteMillis);
+        }
+    }
+
     public static class ContextToken implements AutoCloseable {
         public ContextToken(String key) {
             set(key);
         }
 
+        public ContextToken(String key, Duration maxStaleness) {
+            set(key, maxStaleness);
+        }
+
+        public ContextToken(String key, Duration maxStaleness, Object affinityKey) {
+            set(key, maxStaleness, affinityKey);
+        }
+
         @Override
         public void close() {
             clear();
         }
     }
+
+    /**
+     * One level of the routing stack, linked to the level below it. Plain
+     * READ/WRITE levels on an empty stack are shared constants, so the
+     * common case does not allocate.
+     */
+    private static final class Frame {
+        private static final Frame READ_FRAME = new Frame(READ, NO_STALENESS_BOUND, null, null);
+        private static final Frame WRITE_FRAME = new Frame(WRITE, NO_STALENESS_BOUND, null, null);
+
+        private final String key;
+        private final long maxStalenessMillis;
+        private final Object affinityKey;
+        private final Frame parent;
+        private final int depth;
+
+        private Frame(String key, long maxStalenessMillis, Object affinityKey, Frame parent) {
+            this.key = key;
+            this.maxStalenessMillis = maxStalenessMillis;
+            this.affinityKey = affinityKey;
+            this.parent = parent;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+
+        private static Frame of(String key, long maxStalenessMillis, Frame parent) {
+            if (parent == null && maxStalenessMillis == NO_STALENESS_BOUND) {
+                if (READ.equals(key)) {
+                    return READ_FRAME;
+                }
+                if (WRITE.equals(key)) {
+                    return WRITE_FRAME;
+                }
+            }
+            return new Frame(key, maxStalenessMillis, null, parent);
+        }
+
+        private static Frame of(String key, long maxStalenessMillis, Object affinityKey, Frame parent) {
+            if (affinityKey == null) {
+                return of(key, maxStalenessMillis, parent);
+            }
+            return new Frame(key, maxStalenessMillis, affinityKey, parent);
+        }
+    }
+
+    /**
+     * {@code java.lang.ScopedValue} accessed through method handles, so the
+     * library still compiles and runs on JDK 17. Only {@code where},
+     * {@code Carrier.run} and {@code orElse} are used, as they kept the
+     * same shape from the JDK 21 preview to the final API.
+     */
+    private static final class ScopedFrames {
+        private static final MethodHandle WHERE;  // (Object) -> Object carrier
+        private static final MethodHandle RUN;    // (Object carrier, Runnable) -> void
+        private static final MethodHandle OR_ELSE; // (Object) -> Object
+        private static final boolean AVAILABLE;
+
+        static {
+            MethodHandle where = null;
+            MethodHandle run = null;
+            MethodHandle orElse = null;
+            boolean available = false;
+            if (!"false".equalsIgnoreCase(System.getProperty("routemate.routing-context.scoped-values"))) {
+                try {
+                    Class<?> scopedValueType = Class.forName("java.lang.ScopedValue");
+                    Class<?> carrierType = Class.forName("java.lang.ScopedValue$Carrier");
+                    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                    Object scopedValue = lookup.findStatic(scopedValueType, "newInstance",
+                            MethodType.methodType(scopedValueType)).invoke();
+                    where = lookup.findStatic(scopedValueType, "where",
+                            MethodType.methodType(carrierType, scopedValueType, Object.class))
+                            .bindTo(scopedValue)
+                            .asType(MethodType.methodType(Object.class, Object.class));
+                    run = lookup.findVirtual(carrierType, "run",
+                            MethodType.methodType(void.class, Runnable.class))
+                            .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+                    orElse = lookup.findVirtual(scopedValueType, "orElse",
+                            MethodType.methodType(Object.class, Object.class))
+                            .bindTo(scopedValue);
+                    available = probe(where, run, orElse);
+                } catch (Throwable e) {
+                    // Not on JDK 21+, or preview features are disabled
+                    available = false;
+                }
+            }
+            AVAILABLE = available;
+            WHERE = available ? where : null;
+            RUN = available ? run : null;
+            OR_ELSE = available ? orElse : null;
+        }
+
+        private ScopedFrames() {
+        }
+
+        /**
+         * Binds a value once, so a JVM that exposes the API but refuses to
+         * run it is detected here rather than on the first request.
+         */
+        private static boolean probe(MethodHandle where, MethodHandle run, MethodHandle orElse) throws Throwable {
+            boolean[] bound = new boolean[1];
+            Object carrier = (Object) where.invokeExact((Object) Frame.READ_FRAME);
+            run.invokeExact(carrier, (Runnable) () -> {
+                try {
+                    bound[0] = (Object) orElse.invokeExact((Object) null) == Frame.READ_FRAME;
+                } catch (Throwable e) {
+                    bound[0] = false;
+                }
+            });
+            return bound[0];
+        }
+
+        private static Frame get() {
+            if (!AVAILABLE) {
+                return null;
+            }
+            try {
+                return (Frame) (Object) OR_ELSE.invokeExact((Object) null);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to read scoped routing context", e);
+            }
+        }
+
+        private static void run(Frame frame, Runnable task) {
+            try {
+                Object carrier = (Object) WHERE.invokeExact((Object) frame);
+                RUN.invokeExact(carrier, task);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package io.github.krongdev.routemate.core.routing;
+
+import java.sql.SQLException;
+
+/**
+ * Callback interface for observing the router.
+ * <p>
+ * Listeners are registered with {@link DataSourceRouter#addRoutingListener(RoutingListener)}.
+ * A {@link io.github.krongdev.routemate.core.balancer.LoadBalancer} that implements
+ * this interface is registered automatically.
+ * <p>
+ * Connection callbacks run on the application thread that borrows or returns the
+ * connection, so implementations must be cheap and must not throw.
+ */
+public interface RoutingListener {
+
+    /**
+     * Called after a new routing table has been published.
+     *
+     * @param table the table now in effect
+     */
+    default void routingTableChanged(RoutingTable table) {
+    }
+
+    /**
+     * Called after a connection has been obtained from the DataSource for the given key.
+     *
+     * @param key          the resolved lookup key (a read key or {@code WRITE})
+     * @param acquireNanos time spent in {@code getConnection()}
+     */
+    default void connectionAcquired(String key, long acquireNanos) {
+    }
+
+    /**
+     * Called once when a connection obtained through the router is closed.
+     * <p>
+     * Connections are only wrapped to report their release and failures when
+     * at least one registered listener overrides this method or
+     * {@link #connectionFailed}, and for WRITE only when such a listener also
+     * {@link #observesWriteConnections() observes WRITE}.
+     *
+     * @param key       the lookup key the connection was obtained for
+     * @param heldNanos time between acquisition and close
+     */
+    default void connectionReleased(String key, long heldNanos) {
+    }
+
+    /**
+     * Called when {@code getConnection()}, or a method on a connection or
+     * statement obtained through the router, throws.
+     * <p>
+     * Statements are only wrapped to report their failures when enabled with
+     * {@link DataSourceRouter#setReportStatementFailures(boolean)}.
+     *
+     * @param key the lookup key of the failing DataSource
+     * @param ex  the exception, rethrown to the caller afterwards
+     */
+    default void connectionFailed(String key, SQLException ex) {
+    }
+
+    /**
+     * Whether this listener needs {@link #connectionReleased} and connection
+     * failures for connections to WRITE. Listeners that only track replicas
+     * return false, so WRITE connections are not wrapped on their behalf.
+     */
+    default boolean observesWriteConnections() {
+        return true;
+    }
+
+    /**
+     * Called after the LoadBalancer picked a replica for a READ.
+     * <p>
+     * Selection is only timed when at least one registered listener overrides
+     * this method.
+     *
+     * @param key         the selected replica
+     * @param selectNanos time spent in the LoadBalancer
+     */
+    default void replicaSelected(String key, long selectNanos) {
+    }
+
+    /**
+     * Called when a READ is routed to the WRITE DataSource.
+     */
+    default void fellBackToWrite(FallbackReason reason) {
+    }
+
+    /**
+     * Called when a replica is marked healthy or unhealthy and its state
+     * actually changed.
+     */
+    default void healthChanged(String key, boolean healthy) {
+    }
+}
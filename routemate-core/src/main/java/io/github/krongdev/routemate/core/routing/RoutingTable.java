@@ -0,0 +1,421 @@
+package io.github.krongdev.routemate.core.routing;
+
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of everything the router needs to pick a DataSource:
+ * the write DataSource, the read DataSources, their keys, weights, health and
+ * replication lag. The replica views it hands out carry its weights, so a
+ * LoadBalancer never pairs this table's candidates with another's weights.
+ * <p>
+ * Every change produces a new table with a higher version, which
+ * {@link DataSourceRouter} publishes with a single atomic swap. Readers take
+ * one reference and never observe a half-applied change.
+ */
+public final class RoutingTable {
+
+    /**
+     * Marker for "no replication lag limit".
+     */
+    public static final long NO_LAG_LIMIT = -1;
+
+    private final long version;
+    private final DataSource writeDataSource;
+    private final Map<String, DataSource> readDataSources;
+    private final Map<String, Integer> weights;
+    private final Set<String> unhealthyKeys;
+    private final Map<String, Long> replicationLagMillis;
+    private final long maxReplicationLagMillis;
+    private final Map<String, Integer> tiers;
+    private final ReplicaView readKeys;
+    private final ReplicaView healthyReplicas;
+    private final List<ReplicaView> healthyTiers;
+
+    // Lazily computed views per staleness bound, their tier splits and the last
+    // unsaturated subset of each tier; derived data, so the table stays immutable.
+    // ReplicaView has identity equality, so only this table's own views are keys.
+    private final Map<Long, ReplicaView> stalenessViews = new ConcurrentHashMap<>();
+    private final Map<ReplicaView, List<ReplicaView>> tierSplits = new ConcurrentHashMap<>();
+    private final Map<ReplicaView, Subset> lastSubsets = new ConcurrentHashMap<>();
+
+    private RoutingTable(long version,
+            DataSource writeDataSource,
+            Map<String, DataSource> readDataSources,
+            Map<String, Integer> weights,
+            Set<String> unhealthyKeys,
+            Map<String, Long> replicationLagMillis,
+            long maxReplicationLagMillis,
+            Map<String, Integer> tiers) {
+        this.version = version;
+        this.writeDataSource = writeDataSource;
+        this.readDataSources = Collections.unmodifiableMap(readDataSources);
+        this.weights = Collections.unmodifiableMap(weights);
+        this.unhealthyKeys = Collections.unmodifiableSet(unhealthyKeys);
+        this.replicationLagMillis = Collections.unmodifiableMap(replicationLagMillis);
+        this.maxReplicationLagMillis = maxReplicationLagMillis;
+        this.tiers = Collections.unmodifiableMap(tiers);
+        this.readKeys = ReplicaView.of(readDataSources.keySet(), weights);
+        this.healthyReplicas = computeReplicasWithin(maxReplicationLagMillis);
+        this.healthyTiers = split(healthyReplicas);
+    }
+
+    public static RoutingTable initial(DataSource writeDataSource) {
+        return new RoutingTable(0, writeDataSource, new LinkedHashMap<>(), new LinkedHashMap<>(), new HashSet<>(),
+                new HashMap<>(), NO_LAG_LIMIT, new HashMap<>());
+    }
+
+    private RoutingTable next(Map<String, DataSource> reads,
+            Map<String, Integer> newWeights,
+            Set<String> unhealthy,
+            Map<String, Long> lags,
+            long maxLagMillis) {
+        Map<String, Integer> newTiers = tiers;
+        if (!reads.keySet().containsAll(tiers.keySet())) {
+            newTiers = new HashMap<>(tiers);
+            newTiers.keySet().retainAll(reads.keySet());
+        }
+        return new RoutingTable(version + 1, writeDataSource, reads, newWeights, unhealthy, lags, maxLagMillis,
+                newTiers);
+    }
+
+    /**
+     * Splits one of this table's own views into tiers and remembers the split,
+     * so selection never partitions it again.
+     */
+    private List<ReplicaView> split(ReplicaView candidates) {
+        List<ReplicaView> split = tiers.isEmpty() ? List.of(candidates) : partition(candidates);
+        for (ReplicaView tier : split) {
+            lastSubsets.putIfAbsent(tier, new Subset(0, tier));
+        }
+        tierSplits.putIfAbsent(candidates, split);
+        return split;
+    }
+
+    /**
+     * Splits candidates into groups of equal tier, lowest (most preferred) first.
+     */
+    private List<ReplicaView> partition(ReplicaView candidates) {
+        Map<Integer, List<String>> byTier = new TreeMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            String key = candidates.get(i);
+            byTier.computeIfAbsent(getTier(key), t -> new ArrayList<>()).add(key);
+        }
+        if (byTier.size() <= 1) {
+            return List.of(candidates);
+        }
+        List<ReplicaView> groups = new ArrayList<>(byTier.size());
+        for (List<String> keys : byTier.values()) {
+            groups.add(candidates.subset(keys));
+        }
+        return Collections.unmodifiableList(groups);
+    }
+
+    private ReplicaView computeReplicasWithin(long maxLagMillis) {
+        List<String> keys = new ArrayList<>(readDataSources.size());
+        for (String key : readDataSources.keySet()) {
+            if (unhealthyKeys.contains(key)) {
+                continue;
+            }
+            Long lag = replicationLagMillis.get(key);
+            if (maxLagMillis == NO_LAG_LIMIT || lag == null || lag <= maxLagMillis) {
+                keys.add(key);
+            }
+        }
+        return ReplicaView.of(keys, weights);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public DataSource getWriteDataSource() {
+        return writeDataSource;
+    }
+
+    /**
+     * @return unmodifiable map of read DataSources, in registration order.
+     */
+    public Map<String, DataSource> getReadDataSources() {
+        return readDataSources;
+    }
+
+    /**
+     * @return unmodifiable map of configured weights per read DataSource key.
+     */
+    public Map<String, Integer> getWeights() {
+        return weights;
+    }
+
+    public Set<String> getUnhealthyKeys() {
+        return unhealthyKeys;
+    }
+
+    public ReplicaView getReadKeys() {
+        return readKeys;
+    }
+
+    /**
+     * @return replicas that are healthy and within the configured replication lag limit.
+     */
+    public ReplicaView getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Returns the healthy replicas whose last measured replication lag is within
+     * the given bound, regardless of the table-wide limit. Replicas with unknown
+     * lag are included. Views are computed once per bound and cached.
+     *
+     * @param maxStalenessMillis staleness bound, or {@link #NO_LAG_LIMIT}
+     */
+    public ReplicaView getReplicasWithin(long maxStalenessMillis) {
+        if (maxStalenessMillis == maxReplicationLagMillis) {
+            return healthyReplicas;
+        }
+        return stalenessViews.computeIfAbsent(maxStalenessMillis, bound -> {
+            ReplicaView view = computeReplicasWithin(bound);
+            split(view);
+            return view;
+        });
+    }
+
+    /**
+     * @return last measured replication lag per key, in milliseconds.
+     */
+    public Map<String, Long> getReplicationLagMillis() {
+        return replicationLagMillis;
+    }
+
+    public long getMaxReplicationLagMillis() {
+        return maxReplicationLagMillis;
+    }
+
+    /**
+     * @return unmodifiable map of configured tiers per read DataSource key.
+     */
+    public Map<String, Integer> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * Returns the tier of a replica; lower tiers are preferred. Replicas
+     * without a configured tier are in tier 0.
+     */
+    public int getTier(String key) {
+        Integer tier = tiers.get(key);
+        return tier != null ? tier : 0;
+    }
+
+    /**
+     * True if tiers have been configured, so READs go through tiered selection.
+     */
+    public boolean isTiered() {
+        return !tiers.isEmpty();
+    }
+
+    /**
+     * Splits the given candidates into tiers, most preferred first. The split
+     * of every view handed out by this table is computed once per table.
+     */
+    public List<ReplicaView> getTiersOf(ReplicaView candidates) {
+        if (candidates == healthyReplicas) {
+            return healthyTiers;
+        }
+        List<ReplicaView> split = tierSplits.get(candidates);
+        if (split != null) {
+            return split;
+        }
+        return tiers.isEmpty() ? List.of(candidates) : partition(candidates);
+    }
+
+    /**
+     * Returns the given tier without the replicas whose position is set in
+     * {@code excluded}. For tiers of this table's own views the last result is
+     * cached, so a steady saturation pattern does not allocate per selection.
+     *
+     * @param excluded bit mask of positions in the tier; tiers larger than 64 are not supported
+     */
+    public ReplicaView getTierWithout(ReplicaView tier, long excluded) {
+        if (excluded == 0) {
+            return tier;
+        }
+        Subset last = lastSubsets.get(tier);
+        if (last != null && last.excluded == excluded) {
+            return last.view;
+        }
+        List<String> keys = new ArrayList<>(tier.size());
+        for (int i = 0; i < tier.size(); i++) {
+            if ((excluded & (1L << i)) == 0) {
+                keys.add(tier.get(i));
+            }
+        }
+        ReplicaView view = tier.subset(keys);
+        if (last != null) {
+            lastSubsets.put(tier, new Subset(excluded, view));
+        }
+        return view;
+    }
+
+    public boolean isUnhealthy(String key) {
+        return unhealthyKeys.contains(key);
+    }
+
+    /**
+     * Resolves a lookup key to its DataSource.
+     *
+     * @return the DataSource, or null if the key is unknown.
+     */
+    public DataSource getDataSource(String key) {
+        if (RoutingContext.WRITE.equals(key)) {
+            return writeDataSource;
+        }
+        return readDataSources.get(key);
+    }
+
+    public RoutingTable withReadDataSources(Map<String, DataSource> dataSources) {
+        Map<String, DataSource> reads = new LinkedHashMap<>();
+        if (dataSources != null) {
+            reads.putAll(dataSources);
+        }
+        Set<String> unhealthy = new HashSet<>(unhealthyKeys);
+        unhealthy.retainAll(reads.keySet());
+        Map<String, Long> lags = new HashMap<>(replicationLagMillis);
+        lags.keySet().retainAll(reads.keySet());
+        return next(reads, weights, unhealthy, lags, maxReplicationLagMillis);
+    }
+
+    public RoutingTable withReadDataSource(String key, DataSource dataSource, int weight) {
+        Map<String, DataSource> reads = new LinkedHashMap<>(readDataSources);
+        reads.put(key, dataSource);
+        Map<String, Integer> newWeights = new LinkedHashMap<>(weights);
+        newWeights.put(key, weight);
+        Set<String> unhealthy = new HashSet<>(unhealthyKeys);
+        unhealthy.remove(key);
+        Map<String, Long> lags = new HashMap<>(replicationLagMillis);
+        lags.remove(key);
+        return next(reads, newWeights, unhealthy, lags, maxReplicationLagMillis);
+    }
+
+    public RoutingTable withoutReadDataSource(String key) {
+        if (!readDataSources.containsKey(key)) {
+            return this;
+        }
+        Map<String, DataSource> reads = new LinkedHashMap<>(readDataSources);
+        reads.remove(key);
+        Map<String, Integer> newWeights = new LinkedHashMap<>(weights);
+        newWeights.remove(key);
+        Set<String> unhealthy = new HashSet<>(unhealthyKeys);
+        unhealthy.remove(key);
+        Map<String, Long> lags = new HashMap<>(replicationLagMillis);
+        lags.remove(key);
+        return next(reads, newWeights, unhealthy, lags, maxReplicationLagMillis);
+    }
+
+    /**
+     * Merges the given weights into the current ones.
+     */
+    public RoutingTable withWeights(Map<String, Integer> newWeights) {
+        if (newWeights == null || newWeights.isEmpty()) {
+            return this;
+        }
+        Map<String, Integer> merged = new LinkedHashMap<>(weights);
+        merged.putAll(newWeights);
+        return next(readDataSources, merged, unhealthyKeys, replicationLagMillis, maxReplicationLagMillis);
+    }
+
+    public RoutingTable withUnhealthy(String key) {
+        if (!readDataSources.containsKey(key) || unhealthyKeys.contains(key)) {
+            return this;
+        }
+        Set<String> unhealthy = new HashSet<>(unhealthyKeys);
+        unhealthy.add(key);
+        return next(readDataSources, weights, unhealthy, replicationLagMillis, maxReplicationLagMillis);
+    }
+
+    public RoutingTable withHealthy(String key) {
+        if (!unhealthyKeys.contains(key)) {
+            return this;
+        }
+        Set<String> unhealthy = new HashSet<>(unhealthyKeys);
+        unhealthy.remove(key);
+        return next(readDataSources, weights, unhealthy, replicationLagMillis, maxReplicationLagMillis);
+    }
+
+    /**
+     * Records the last measured replication lag of a replica.
+     *
+     * @param lagMillis measured lag, or null if unknown
+     */
+    public RoutingTable withReplicationLag(String key, Long lagMillis) {
+        if (!readDataSources.containsKey(key) || Objects.equals(replicationLagMillis.get(key), lagMillis)) {
+            return this;
+        }
+        Map<String, Long> lags = new HashMap<>(replicationLagMillis);
+        if (lagMillis == null) {
+            lags.remove(key);
+        } else {
+            lags.put(key, lagMillis);
+        }
+        return next(readDataSources, weights, unhealthyKeys, lags, maxReplicationLagMillis);
+    }
+
+    /**
+     * Sets the lag limit above which replicas leave the default rotation.
+     *
+     * @param maxLagMillis limit, or {@link #NO_LAG_LIMIT}
+     */
+    public RoutingTable withMaxReplicationLag(long maxLagMillis) {
+        if (maxLagMillis == maxReplicationLagMillis) {
+            return this;
+        }
+        return next(readDataSources, weights, unhealthyKeys, replicationLagMillis, maxLagMillis);
+    }
+
+    /**
+     * Merges the given tiers into the current ones.
+     */
+    public RoutingTable withTiers(Map<String, Integer> newTiers) {
+        if (newTiers == null || newTiers.isEmpty()) {
+            return this;
+        }
+        Map<String, Integer> merged = new HashMap<>(tiers);
+        newTiers.forEach((key, tier) -> {
+            if (readDataSources.containsKey(key)) {
+                merged.put(key, tier);
+            }
+        });
+        if (merged.equals(tiers)) {
+            return this;
+        }
+        return new RoutingTable(version + 1, writeDataSource, readDataSources, weights, unhealthyKeys,
+                replicationLagMillis, maxReplicationLagMillis, merged);
+    }
+
+    private static final class Subset {
+        private final long excluded;
+        private final ReplicaView view;
+
+        private Subset(long excluded, ReplicaView view) {
+            this.excluded = excluded;
+            this.view = view;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingTable{version=" + version + ", reads=" + readKeys + ", healthy=" + healthyReplicas + "}";
+    }
+}
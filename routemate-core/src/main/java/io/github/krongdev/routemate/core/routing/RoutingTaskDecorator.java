@@ -0,0 +1,16 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} that runs tasks with the routing context of the
+ * thread that submitted them, so {@code @Async} methods and other executor
+ * work keep their READ/WRITE routing.
+ */
+public class RoutingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return RoutingContext.wrap(runnable);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.krongdev.routemate.core.routing;
+
+/**
+ * Tracks the last committed write of the current session (by default the
+ * current thread, reset per request by the starter) for read-your-writes
+ * routing.
+ * <p>
+ * The write position is a wall-clock timestamp taken after commit. A replica
+ * is considered caught up when its last lag measurement shows it has applied
+ * everything up to that timestamp.
+ */
+public final class SessionConsistency {
+
+    private static final ThreadLocal<WriteMark> LAST_WRITE = new ThreadLocal<>();
+
+    private SessionConsistency() {
+    }
+
+    /**
+     * Records that a write has just been committed.
+     */
+    public static void recordWrite() {
+        recordWrite(System.currentTimeMillis());
+    }
+
+    /**
+     * Records a write position, e.g. one restored from a cookie or a header
+     * so that consistency spans several requests.
+     *
+     * @param epochMillis commit timestamp
+     */
+    public static void recordWrite(long epochMillis) {
+        WriteMark mark = LAST_WRITE.get();
+        if (mark == null) {
+            LAST_WRITE.set(new WriteMark(epochMillis));
+        } else if (epochMillis > mark.epochMillis) {
+            mark.epochMillis = epochMillis;
+        }
+    }
+
+    /**
+     * @return the last recorded write timestamp, or 0 if this session has not written.
+     */
+    public static long getLastWriteMillis() {
+        WriteMark mark = LAST_WRITE.get();
+        return mark == null ? 0 : mark.epochMillis;
+    }
+
+    /**
+     * Replaces the recorded write, e.g. when routing context is propagated to
+     * another thread.
+     *
+     * @param epochMillis commit timestamp, or 0 for none
+     */
+    static void restore(long epochMillis) {
+        if (epochMillis == 0) {
+            LAST_WRITE.remove();
+        } else {
+            LAST_WRITE.set(new WriteMark(epochMillis));
+        }
+    }
+
+    /**
+     * Forgets the recorded write, ending the session.
+     */
+    public static void reset() {
+        LAST_WRITE.remove();
+    }
+
+    private static final class WriteMark {
+        private long epochMillis;
+
+        private WriteMark(long epochMillis) {
+            this.epochMillis = epochMillis;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ramps up traffic to replicas that were just added or marked healthy again.
+ * <p>
+ * A warming replica starts with almost no share of the reads and reaches its
+ * full share after {@code window}. A scheduler thread advances each replica's
+ * ramp factor once per twentieth of the window; the router reads the
+ * published factors on every READ, sends a warming replica its ramped share
+ * directly and lets the LoadBalancer pick among the warm replicas for the
+ * rest. The balancer therefore sees one stable view during the ramp, picks
+ * once per read, and every balancer honours the ramp whether or not it uses
+ * weights. Reads with an affinity key are admitted by their hash, so the set
+ * of keys on a warming replica only grows.
+ * <p>
+ * Replicas present when the listener is registered start warm.
+ */
+public class SlowStart implements RoutingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowStart.class);
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(30);
+
+    private static final int STEPS = 20;
+    private static final long MIN_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Shape of the ramp, as a share of full traffic over the window.
+     */
+    public enum Curve {
+        /** Grows evenly from 0 to 1. */
+        LINEAR,
+        /** Doubles every tenth of the window, from 1/1024 to 1. */
+        EXPONENTIAL;
+
+        double factor(double progress) {
+            return this == LINEAR ? progress : Math.pow(2, 10 * (progress - 1));
+        }
+    }
+
+    private static final Warming[] NONE = new Warming[0];
+
+    private final long windowNanos;
+    private final long stepNanos;
+    private final Curve curve;
+
+    private final ReentrantLock warmingLock = new ReentrantLock();
+    // Replicas still warming up; read on every READ selection
+    private volatile Warming[] warming = NONE;
+    private volatile RoutingTable lastTable;
+    // Guarded by warmingLock
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> stepTask;
+
+    public SlowStart() {
+        this(DEFAULT_WINDOW, Curve.LINEAR);
+    }
+
+    /**
+     * @param window time until a replica receives its full share of reads
+     * @param curve  shape of the ramp
+     */
+    public SlowStart(Duration window, Curve curve) {
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.stepNanos = Math.max(MIN_STEP_NANOS, windowNanos / STEPS);
+        this.curve = curve != null ? curve : Curve.LINEAR;
+    }
+
+    /**
+     * True if some replica is warming up. Called by the router for every READ
+     * selection, so this is a single volatile read.
+     */
+    public boolean isWarming() {
+        return warming.length != 0;
+    }
+
+    /**
+     * Returns the published ramp factor of a warming replica, between 0 and 1,
+     * or -1 if the replica is warm.
+     */
+    public double factorOf(String key) {
+        for (Warming entry : warming) {
+            if (entry.key.equals(key)) {
+                return entry.factor;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the ramp factor, between 0 and 1, of each replica still warming up.
+     */
+    public Map<String, Double> getWarmingReplicas() {
+        Warming[] current = this.warming;
+        if (current.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, Double> factors = new LinkedHashMap<>();
+        for (Warming entry : current) {
+            factors.put(entry.key, entry.factor);
+        }
+        return factors;
+    }
+
+    /**
+     * Stops the scheduler thread. Replicas still warming keep their current
+     * factor until the listener is removed from the router.
+     */
+    public void shutdown() {
+        warmingLock.lock();
+        try {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+                stepTask = null;
+            }
+        } finally {
+            warmingLock.unlock();
+        }
+    }
+
+    /**
+     * A uniform draw in [0, 1); fixed per affinity key.
+     */
+    static double draw(Object affinityKey) {
+        if (affinityKey == null) {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+        int hash = affinityKey.hashCode() * 0x9E3779B9;
+        return (hash >>> 8) * 0x1.0p-24;
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        RoutingTable previous = this.lastTable;
+        this.lastTable = table;
+        if (previous == null) {
+            return;
+        }
+        Map<String, ?> before = previous.getReadDataSources();
+        Map<String, ?> after = table.getReadDataSources();
+        for (String key : after.keySet()) {
+            if (!before.containsKey(key)) {
+                start(key);
+            }
+        }
+        for (Warming entry : warming) {
+            if (!after.containsKey(entry.key)) {
+                finish(entry.key);
+            }
+        }
+    }
+
+    @Override
+    public void healthChanged(String key, boolean healthy) {
+        if (healthy) {
+            start(key);
+        } else {
+            finish(key);
+        }
+    }
+
+    /**
+     * Runs on the scheduler thread: advances every ramp and retires the
+     * replicas whose window has passed.
+     */
+    private void step() {
+        long now = System.nanoTime();
+        for (Warming entry : warming) {
+            long elapsed = now - entry.startNanos;
+            if (elapsed >= windowNanos) {
+                finish(entry.key, entry);
+            } else {
+                entry.factor = curve.factor(elapsed / (double) windowNanos);
+            }
+        }
+    }
+
+    private void start(String key) {
+        warmingLock.lock();
+        try {
+            Warming[] current = this.warming;
+            int index = indexOf(current, key);
+            Warming[] next = index >= 0 ? current.clone() : Arrays.copyOf(current, current.length + 1);
+            next[index >= 0 ? index : current.length] = new Warming(key, System.nanoTime(), curve.factor(0));
+            this.warming = next;
+            if (stepTask == null) {
+                stepTask = executor().scheduleAtFixedRate(this::step, stepNanos, stepNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            warmingLock.unlock();
+        }
+        log.info("Replica [{}] warming up over {} ms ({})", key, windowNanos / 1_000_000, curve);
+    }
+
+    private void finish(String key) {
+        finish(key, null);
+    }
+
+    /**
+     * Removes the replica from the warming set; if {@code expected} is given,
+     * only while that entry is still current, so a ramp restarted in the
+     * meantime is kept.
+     */
+    private void finish(String key, Warming expected) {
+        warmingLock.lock();
+        try {
+            Warming[] current = this.warming;
+            int index = indexOf(current, key);
+            if (index < 0 || (expected != null && current[index] != expected)) {
+                return;
+            }
+            Warming[] next = new Warming[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+            this.warming = next.length == 0 ? NONE : next;
+            if (next.length == 0 && stepTask != null) {
+                stepTask.cancel(false);
+                stepTask = null;
+            }
+        } finally {
+            warmingLock.unlock();
+        }
+        log.debug("Replica [{}] is warm", key);
+    }
+
+    // Must be called under warmingLock
+    private ScheduledExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "routemate-slow-start");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    private static int indexOf(Warming[] entries, String key) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].key.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Warming {
+        private final String key;
+        private final long startNanos;
+        // Advanced by the scheduler thread, read by every READ selection
+        private volatile double factor;
+
+        private Warming(String key, long startNanos, double factor) {
+            this.key = key;
+            this.startNanos = startNanos;
+            this.factor = factor;
+        }
+    }
+}
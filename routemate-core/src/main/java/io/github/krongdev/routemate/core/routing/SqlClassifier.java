@@ -0,0 +1,108 @@
+package io.github.krongdev.routemate.core.routing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a SQL string is a plain read that a replica can serve.
+ * <p>
+ * Deliberately conservative: only statements starting with {@code SELECT} or
+ * {@code WITH} qualify, and only if they contain no locking clause
+ * ({@code FOR UPDATE}, {@code FOR SHARE}, {@code LOCK IN SHARE MODE}, SQL
+ * Server lock hints), no {@code INTO} and no data-modifying keyword. Calls to
+ * well-known functions with side effects or session state (sequences,
+ * advisory locks, last insert id) also disqualify a statement. Anything it
+ * is unsure about stays on WRITE.
+ * <p>
+ * Results are cached per SQL string. The cache is cleared when it reaches its
+ * size limit, so SQL with inlined literals cannot grow it without bound.
+ */
+public final class SqlClassifier {
+
+    public static final int DEFAULT_CACHE_SIZE = 2048;
+
+    private static final Pattern NOT_READ_ONLY = Pattern.compile(
+            "\\b(?:FOR\\s+(?:NO\\s+KEY\\s+)?UPDATE|FOR\\s+(?:KEY\\s+)?SHARE|LOCK\\s+IN\\s+SHARE\\s+MODE"
+                    + "|INTO|INSERT|UPDATE|DELETE|MERGE"
+                    + "|UPDLOCK|XLOCK|HOLDLOCK|TABLOCKX"
+                    + "|NEXTVAL|SETVAL|CURRVAL|LASTVAL|LAST_INSERT_ID|SCOPE_IDENTITY|FOUND_ROWS"
+                    + "|GET_LOCK|RELEASE_LOCK|PG_ADVISORY_\\w+)\\b"
+                    + "|@@IDENTITY",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, Boolean> cache = new ConcurrentHashMap<>();
+    private final int maxCacheSize;
+
+    public SqlClassifier() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxCacheSize number of distinct SQL strings to remember, or 0 to disable caching
+     */
+    public SqlClassifier(int maxCacheSize) {
+        if (maxCacheSize < 0) {
+            throw new IllegalArgumentException("maxCacheSize cannot be negative");
+        }
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Returns true if the statement only reads and may run on a replica.
+     */
+    public boolean isRead(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        Boolean cached = cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        boolean read = classify(sql);
+        if (maxCacheSize > 0) {
+            if (cache.size() >= maxCacheSize) {
+                cache.clear();
+            }
+            cache.put(sql, read);
+        }
+        return read;
+    }
+
+    static boolean classify(String sql) {
+        int start = skipLeadingNoise(sql);
+        if (!startsWithKeyword(sql, start, "SELECT") && !startsWithKeyword(sql, start, "WITH")) {
+            return false;
+        }
+        return !NOT_READ_ONLY.matcher(sql).find();
+    }
+
+    /**
+     * Skips whitespace, comments and opening parentheses before the first keyword.
+     */
+    private static int skipLeadingNoise(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean startsWithKeyword(String sql, int offset, String keyword) {
+        int end = offset + keyword.length();
+        return sql.regionMatches(true, offset, keyword, 0, keyword.length())
+                && (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+    }
+}
@@ -0,0 +1,283 @@
+package io.github.krongdev.routemate.core.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection proxy used by {@link StatementRoutingDataSource} outside
+ * transactions. Physical connections are obtained on demand: one routed as
+ * READ for statements the {@link SqlClassifier} accepts, one routed as WRITE
+ * for everything else. After the first write, or any call that changes
+ * connection state, all further statements use the WRITE connection so the
+ * session sees its own changes.
+ */
+final class StatementRoutingConnection implements InvocationHandler {
+
+    private final DataSource router;
+    private final String username;
+    private final String password;
+    private final boolean withCredentials;
+    private final SqlClassifier classifier;
+    private final boolean recordWrites;
+
+    private Connection readConnection;
+    private Connection writeConnection;
+    private boolean pinned;
+    private boolean wrote;
+    private boolean closed;
+
+    private StatementRoutingConnection(DataSource router, String username, String password,
+            boolean withCredentials, SqlClassifier classifier, boolean recordWrites) {
+        this.router = router;
+        this.username = username;
+        this.password = password;
+        this.withCredentials = withCredentials;
+        this.classifier = classifier;
+        this.recordWrites = recordWrites;
+    }
+
+    /**
+     * @param recordWrites whether a connection that wrote records it for read-your-writes
+     */
+    static Connection wrap(DataSource router, String username, String password, boolean withCredentials,
+            SqlClassifier classifier, boolean recordWrites) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new StatementRoutingConnection(router, username, password, withCredentials, classifier,
+                        recordWrites));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Routemate statement-routing connection [read=" + readConnection + ", write="
+                        + writeConnection + "]";
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                return invokeTarget(writeConnection(), method, args);
+            case "isWrapperFor":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return true;
+                }
+                return invokeTarget(writeConnection(), method, args);
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed;
+            case "getAutoCommit":
+                // Connections start in auto-commit mode; any change pins WRITE
+                return writeConnection == null || (boolean) invokeTarget(writeConnection, method, args);
+            default:
+                break;
+        }
+
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+
+        switch (method.getName()) {
+            case "createStatement":
+                if (pinned) {
+                    return invokeTarget(writeConnection(), method, args);
+                }
+                return DeferredStatement.wrap(this, (Connection) proxy, method, args);
+            case "prepareStatement":
+                return invokeTarget(connectionFor((String) args[0]), method, args);
+            case "nativeSQL":
+            case "getMetaData":
+            case "getTransactionIsolation":
+            case "getCatalog":
+            case "getSchema":
+            case "isReadOnly":
+            case "getHoldability":
+            case "getClientInfo":
+            case "getNetworkTimeout":
+            case "getTypeMap":
+            case "getWarnings":
+            case "isValid":
+                // Inspecting the session does not change where later reads go
+                return invokeTarget(writeConnection(), method, args);
+            default:
+                // prepareCall, setAutoCommit, commit, setReadOnly, ... stay on WRITE from here on
+                pinned = true;
+                return invokeTarget(writeConnection(), method, args);
+        }
+    }
+
+    /**
+     * Returns the connection a statement with the given SQL should run on.
+     */
+    private Connection connectionFor(String sql) throws SQLException {
+        if (!pinned && classifier.isRead(sql)) {
+            return readConnection();
+        }
+        pinned = true;
+        wrote = true;
+        return writeConnection();
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (readConnection == null) {
+            readConnection = obtain(RoutingContext.READ);
+        }
+        return readConnection;
+    }
+
+    private Connection writeConnection() throws SQLException {
+        if (writeConnection == null) {
+            writeConnection = obtain(RoutingContext.WRITE);
+        }
+        return writeConnection;
+    }
+
+    private Connection obtain(String key) throws SQLException {
+        return RoutingContext.callWith(key, null, null,
+                () -> withCredentials ? router.getConnection(username, password) : router.getConnection());
+    }
+
+    private void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (readConnection != null) {
+                readConnection.close();
+            }
+        } finally {
+            if (writeConnection != null) {
+                writeConnection.close();
+            }
+            if (wrote && recordWrites) {
+                // Later auto-commit reads in this session honour read-your-writes
+                SessionConsistency.recordWrite();
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /**
+     * A statement from {@code createStatement()}, whose SQL is only known at
+     * execution. Settings applied before then are recorded and replayed on the
+     * physical statement once the target connection is known.
+     */
+    private static final class DeferredStatement implements InvocationHandler {
+        private final StatementRoutingConnection connection;
+        private final Connection connectionProxy;
+        private final Method createMethod;
+        private final Object[] createArgs;
+        private final List<Object[]> settings = new ArrayList<>(); // { Method, args }
+        private Statement target;
+        private boolean targetIsRead;
+        private boolean closed;
+
+        private DeferredStatement(StatementRoutingConnection connection, Connection connectionProxy,
+                Method createMethod, Object[] createArgs) {
+            this.connection = connection;
+            this.connectionProxy = connectionProxy;
+            this.createMethod = createMethod;
+            this.createArgs = createArgs;
+        }
+
+        private static Statement wrap(StatementRoutingConnection connection, Connection connectionProxy,
+                Method createMethod, Object[] createArgs) {
+            return (Statement) Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[] { Statement.class },
+                    new DeferredStatement(connection, connectionProxy, createMethod, createArgs));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Routemate deferred statement [" + target + "]";
+                case "getConnection":
+                    return connectionProxy;
+                case "close":
+                    closed = true;
+                    if (target != null) {
+                        target.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (name.startsWith("execute") && args != null && args[0] instanceof String sql) {
+                return invokeTarget(resolve(sql), method, args);
+            }
+            if ("addBatch".equals(name)) {
+                return invokeTarget(resolve((String) args[0]), method, args);
+            }
+            if (target == null && name.startsWith("set") && method.getReturnType() == void.class) {
+                settings.add(new Object[] { method, args });
+                return null;
+            }
+            return invokeTarget(target != null ? target : resolve(null), method, args);
+        }
+
+        /**
+         * Returns the physical statement to run the given SQL on, creating it
+         * on first use, or moving it from the READ to the WRITE connection
+         * when a write follows a read on the same statement.
+         *
+         * @param sql the SQL to execute, or null for calls that carry none
+         */
+        private Statement resolve(String sql) throws Throwable {
+            boolean read = sql != null && !connection.pinned && connection.classifier.isRead(sql);
+            if (target != null && (read || !targetIsRead)) {
+                if (!read && sql != null) {
+                    connection.pinned = true;
+                    connection.wrote = true;
+                }
+                return target;
+            }
+            Connection physical = sql == null ? connection.writeConnection() : connection.connectionFor(sql);
+            if (target != null) {
+                target.close();
+            }
+            target = (Statement) invokeTarget(physical, createMethod, createArgs);
+            targetIsRead = read;
+            for (Object[] setting : settings) {
+                invokeTarget(target, (Method) setting[0], (Object[]) setting[1]);
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opt-in statement-level routing in front of a {@link DataSourceRouter}.
+ * <p>
+ * Inside a transaction, or when a routing level is already set, connections
+ * come straight from the router as usual. Otherwise, e.g. for a plain
+ * {@code JdbcTemplate} query, each statement is routed on its own: SQL that
+ * the {@link SqlClassifier} recognizes as a plain read runs on a replica
+ * connection, and everything else runs on WRITE. Once a connection has
+ * written, or its state was changed, it stays on WRITE.
+ */
+public class StatementRoutingDataSource extends DelegatingDataSource {
+
+    private final DataSourceRouter router;
+    private final SqlClassifier classifier;
+
+    public StatementRoutingDataSource(DataSourceRouter router) {
+        this(router, new SqlClassifier());
+    }
+
+    public StatementRoutingDataSource(DataSourceRouter router, SqlClassifier classifier) {
+        super(router);
+        this.router = router;
+        this.classifier = classifier;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isRouted()) {
+            return super.getConnection();
+        }
+        return StatementRoutingConnection.wrap(router, null, null, false, classifier, recordWrites());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (isRouted()) {
+            return super.getConnection(username, password);
+        }
+        return StatementRoutingConnection.wrap(router, username, password, true, classifier, recordWrites());
+    }
+
+    private boolean recordWrites() {
+        return !router.getReadYourWritesWindow().isZero();
+    }
+
+    private static boolean isRouted() {
+        return RoutingContext.get() != null || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
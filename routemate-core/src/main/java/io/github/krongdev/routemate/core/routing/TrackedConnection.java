@@ -0,0 +1,134 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connection proxy that reports its release and any {@link SQLException}
+ * thrown by it, and optionally by its statements, to the
+ * {@link RoutingListener}s that observed its acquisition. Everything else is
+ * passed to the target.
+ */
+final class TrackedConnection implements InvocationHandler {
+
+    private final Connection target;
+    private final String key;
+    private final long acquiredAt;
+    private final RoutingListener[] listeners;
+    private final boolean wrapStatements;
+    private boolean closed;
+
+    private TrackedConnection(Connection target, String key, long acquiredAt, RoutingListener[] listeners,
+            boolean wrapStatements) {
+        this.target = target;
+        this.key = key;
+        this.acquiredAt = acquiredAt;
+        this.listeners = listeners;
+        this.wrapStatements = wrapStatements;
+    }
+
+    /**
+     * @param wrapStatements whether statements are wrapped to report their failures too
+     */
+    static Connection wrap(Connection target, String key, long acquiredAt, RoutingListener[] listeners,
+            boolean wrapStatements) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] { ConnectionProxy.class },
+                new TrackedConnection(target, key, acquiredAt, listeners, wrapStatements));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Routemate tracked connection [" + key + "] for " + target;
+            case "getTargetConnection":
+                return target;
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                break;
+            case "isWrapperFor":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return true;
+                }
+                break;
+            case "close":
+                try {
+                    target.close();
+                } finally {
+                    release();
+                }
+                return null;
+            case "isClosed":
+                if (closed) {
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+
+        Object result = invokeTarget(target, method, args);
+        if (wrapStatements && result instanceof Statement statement) {
+            return wrapStatement(statement, method.getReturnType(), (Connection) proxy);
+        }
+        return result;
+    }
+
+    private Object invokeTarget(Object targetObject, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(targetObject, args);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getTargetException();
+            if (cause instanceof SQLException sqlException) {
+                for (RoutingListener listener : listeners) {
+                    listener.connectionFailed(key, sqlException);
+                }
+            }
+            throw cause;
+        }
+    }
+
+    private Object wrapStatement(Statement statement, Class<?> statementType, Connection connectionProxy) {
+        return Proxy.newProxyInstance(
+                statementType.getClassLoader(),
+                new Class<?>[] { statementType },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "getConnection":
+                            return connectionProxy;
+                        default:
+                            return invokeTarget(statement, method, args);
+                    }
+                });
+    }
+
+    private void release() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long heldNanos = System.nanoTime() - acquiredAt;
+        for (RoutingListener listener : listeners) {
+            listener.connectionReleased(key, heldNanos);
+        }
+    }
+}
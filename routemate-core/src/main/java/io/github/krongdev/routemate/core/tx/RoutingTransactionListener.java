@@ -0,0 +1,107 @@
+package io.github.krongdev.routemate.core.tx;
+
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import io.github.krongdev.routemate.core.routing.SessionConsistency;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Routes transactions by their read-only flag from inside the transaction
+ * manager, as an alternative to {@link io.github.krongdev.routemate.core.aop.RoutingAspect}.
+ * <p>
+ * The routing key is pushed in {@code beforeBegin}, i.e. before the manager
+ * obtains its connection, and popped when the transaction completes. This
+ * covers declarative, {@code TransactionTemplate} and other programmatic
+ * transactions without an extra proxy layer. Register it with the transaction
+ * manager (see {@link org.springframework.transaction.ConfigurableTransactionManager#addListener}).
+ * <p>
+ * The level spans two callbacks, so it is pushed onto the ThreadLocal with
+ * {@link RoutingContext#set(String)} rather than bound with
+ * {@link RoutingContext#callWith(String, java.util.concurrent.Callable)}.
+ * <p>
+ * With {@code setRouteTransactions(false)} it leaves routing to the aspect
+ * and only records committed writes for read-your-writes. Writes are recorded
+ * here rather than in the aspect because only the commit of the outermost
+ * transaction makes them visible.
+ * <p>
+ * Method-level annotations such as
+ * {@link io.github.krongdev.routemate.core.annotation.MaxStaleness} are not
+ * visible to the transaction manager and are ignored in this mode.
+ */
+public class RoutingTransactionListener implements TransactionExecutionListener {
+
+    // Transactions this listener has pushed a routing level for, innermost first
+    private static final ThreadLocal<Deque<TransactionExecution>> ROUTED = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private volatile boolean routeTransactions = true;
+    private volatile boolean recordWrites = false;
+
+    /**
+     * Whether to set the routing level of each transaction. Turn off when
+     * {@link io.github.krongdev.routemate.core.aop.RoutingAspect} routes and
+     * this listener only records writes.
+     */
+    public void setRouteTransactions(boolean routeTransactions) {
+        this.routeTransactions = routeTransactions;
+    }
+
+    /**
+     * Records committed writes in {@link SessionConsistency}. Only needed for
+     * read-your-writes routing, so it is off by default.
+     */
+    public void setRecordWrites(boolean recordWrites) {
+        this.recordWrites = recordWrites;
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        if (!routeTransactions) {
+            return;
+        }
+        RoutingContext.set(transaction.isReadOnly() ? RoutingContext.READ : RoutingContext.WRITE);
+        ROUTED.get().push(transaction);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null && routeTransactions) {
+            complete(transaction);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        boolean committed = routeTransactions ? complete(transaction) : transaction.isNewTransaction();
+        if (committed && recordWrites && commitFailure == null && !transaction.isReadOnly()) {
+            SessionConsistency.recordWrite();
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        if (routeTransactions) {
+            complete(transaction);
+        }
+    }
+
+    /**
+     * Pops the routing level pushed for the transaction. Managers may report
+     * completion more than once (e.g. a failed commit followed by rollback),
+     * so only the first report for the innermost routed transaction counts.
+     */
+    private static boolean complete(TransactionExecution transaction) {
+        Deque<TransactionExecution> routed = ROUTED.get();
+        if (routed.peek() != transaction) {
+            return false;
+        }
+        routed.pop();
+        if (routed.isEmpty()) {
+            ROUTED.remove();
+        }
+        RoutingContext.clear();
+        return true;
+    }
+}
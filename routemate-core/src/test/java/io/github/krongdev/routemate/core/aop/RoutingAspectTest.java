@@ -0,0 +1,144 @@
+package io.github.krongdev.routemate.core.aop;
+
+import io.github.krongdev.routemate.core.annotation.MaxStaleness;
+import io.github.krongdev.routemate.core.annotation.RoutingKey;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import io.github.krongdev.routemate.core.routing.SessionConsistency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RoutingAspectTest {
+
+    private RoutingAspect aspect;
+    private Service service;
+
+    @BeforeEach
+    void setUp() {
+        aspect = new RoutingAspect();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new DefaultService());
+        factory.addAspect(aspect);
+        service = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+        SessionConsistency.reset();
+    }
+
+    @Test
+    void testReadOnlyRoutesToRead() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("READ:-1", service.find());
+        }
+        assertNull(RoutingContext.get());
+    }
+
+    @Test
+    void testReadWriteRoutesToWrite() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("WRITE:-1", service.save());
+        }
+    }
+
+    @Test
+    void testWritesLeftToTransactionListener() {
+        service.save();
+        assertEquals(0, SessionConsistency.getLastWriteMillis());
+    }
+
+    @Test
+    void testMaxStalenessApplied() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("READ:2000", service.findRecent());
+        }
+    }
+
+    @Test
+    void testRoutingKeySetsAffinity() {
+        assertEquals("READ:customer-7", service.findByCustomer(1, "customer-7"));
+        assertEquals("READ:null", service.findByCustomer(1, null));
+        assertNull(RoutingContext.getAffinityKey());
+    }
+
+    @Test
+    void testClassLevelTransactional() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ReadOnlyService());
+        factory.addAspect(new RoutingAspect());
+        Service readOnly = factory.getProxy();
+
+        assertEquals("READ:-1", readOnly.find());
+        assertEquals("WRITE:-1", readOnly.save());
+    }
+
+    public interface Service {
+        String find();
+
+        String findRecent();
+
+        String findByCustomer(int page, @RoutingKey String customerId);
+
+        String save();
+    }
+
+    public static class DefaultService implements Service {
+        @Override
+        @Transactional(readOnly = true)
+        public String find() {
+            return current();
+        }
+
+        @Override
+        @Transactional(readOnly = true)
+        @MaxStaleness(2)
+        public String findRecent() {
+            return current();
+        }
+
+        @Override
+        @Transactional(readOnly = true)
+        public String findByCustomer(int page, String customerId) {
+            return RoutingContext.get() + ":" + RoutingContext.getAffinityKey();
+        }
+
+        @Override
+        @Transactional
+        public String save() {
+            return current();
+        }
+
+        private static String current() {
+            return RoutingContext.get() + ":" + RoutingContext.getMaxStalenessMillis();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public static class ReadOnlyService implements Service {
+        @Override
+        public String find() {
+            return DefaultService.current();
+        }
+
+        @Override
+        public String findRecent() {
+            return DefaultService.current();
+        }
+
+        @Override
+        public String findByCustomer(int page, String customerId) {
+            return DefaultService.current();
+        }
+
+        @Override
+        @Transactional
+        public String save() {
+            return DefaultService.current();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashLoadBalancerTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    @DisplayName("Should return null for empty or null list")
+    void testEmptyList() {
+        ConsistentHashLoadBalancer lb = new ConsistentHashLoadBalancer();
+        assertNull(lb.select(null));
+        assertNull(lb.selectFrom(ReplicaView.EMPTY));
+        assertNull(lb.selectFrom(ReplicaView.EMPTY, "customer-1"));
+    }
+
+    @Test
+    @DisplayName("Should send the same affinity key to the same replica")
+    void testSameKeySameReplica() {
+        ConsistentHashLoadBalancer lb = new ConsistentHashLoadBalancer();
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B", "C"));
+
+        for (int i = 0; i < 100; i++) {
+            String first = lb.selectFrom(view, "customer-" + i);
+            for (int j = 0; j < 5; j++) {
+                assertEquals(first, lb.selectFrom(view, "customer-" + i));
+            }
+            // Independent of view order and of a fresh instance
+            assertEquals(first, new ConsistentHashLoadBalancer()
+                    .selectFrom(ReplicaView.of(Arrays.asList("C", "A", "B")), "customer-" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should only move keys owned by an added or removed replica")
+    void testMinimalMovement() {
+        ConsistentHashLoadBalancer lb = new ConsistentHashLoadBalancer();
+        ReplicaView four = ReplicaView.of(Arrays.asList("A", "B", "C", "D"));
+        ReplicaView five = ReplicaView.of(Arrays.asList("A", "B", "C", "D", "E"));
+
+        String[] before = assign(lb, four);
+        String[] after = assign(lb, five);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("E", after[i], "keys only move to the new replica");
+                moved++;
+            }
+        }
+        // Ideal share is 1/5
+        assertEquals(0.2, moved / (double) KEYS, 0.05);
+
+        // Removing it again restores every assignment
+        assertArrayEquals(before, assign(lb, four));
+    }
+
+    @Test
+    @DisplayName("Should split keys by weight")
+    void testWeightedDistribution() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 3);
+        ConsistentHashLoadBalancer lb = new ConsistentHashLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+
+        long countB = Arrays.stream(assign(lb, view)).filter("B"::equals).count();
+        assertEquals(0.75, countB / (double) KEYS, 0.05);
+
+        // Without an affinity key reads still follow the weights
+        int randomB = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if ("B".equals(lb.selectFrom(view))) {
+                randomB++;
+            }
+        }
+        assertEquals(0.75, randomB / (double) KEYS, 0.05);
+    }
+
+    @Test
+    @DisplayName("Should only pick healthy keys")
+    void testHealthyOnly() {
+        ConsistentHashLoadBalancer lb = new ConsistentHashLoadBalancer(Collections.emptyMap());
+        List<String> healthy = Arrays.asList("B", "C");
+        ReplicaView view = ReplicaView.of(healthy);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(healthy.contains(lb.selectFrom(view, (long) i)));
+        }
+    }
+
+    private static String[] assign(ConsistentHashLoadBalancer lb, ReplicaView view) {
+        String[] owners = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            owners[i] = lb.selectFrom(view, "customer-" + i);
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LeastConnectionsLoadBalancerTest {
+
+    private LeastConnectionsLoadBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        balancer = new LeastConnectionsLoadBalancer();
+
+        Map<String, DataSource> reads = new LinkedHashMap<>();
+        reads.put("A", mock(DataSource.class));
+        reads.put("B", mock(DataSource.class));
+        reads.put("C", mock(DataSource.class));
+        balancer.routingTableChanged(RoutingTable.initial(mock(DataSource.class)).withReadDataSources(reads));
+    }
+
+    @AfterEach
+    void tearDown() {
+        balancer.close();
+    }
+
+    @Test
+    @DisplayName("Should return null for empty or null list")
+    void testEmptyList() {
+        assertNull(balancer.select(null));
+        assertNull(balancer.select(Collections.emptyList()));
+        assertNull(balancer.selectFrom(ReplicaView.EMPTY));
+    }
+
+    @Test
+    @DisplayName("Should pick the replica with the fewest in-flight connections")
+    void testLeastLoaded() {
+        balancer.connectionAcquired("A", 0);
+        balancer.connectionAcquired("A", 0);
+        balancer.connectionAcquired("C", 0);
+
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B", "C"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("B", balancer.selectFrom(view));
+        }
+
+        balancer.connectionAcquired("B", 0);
+        balancer.connectionAcquired("B", 0);
+        balancer.connectionReleased("A", 0);
+        balancer.connectionReleased("A", 0);
+
+        assertEquals(0, balancer.getLoad("A"));
+        assertEquals("A", balancer.selectFrom(view));
+    }
+
+    @Test
+    @DisplayName("Should only consider healthy candidates")
+    void testHealthyOnly() {
+        balancer.connectionAcquired("A", 0);
+        balancer.connectionAcquired("A", 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("A", balancer.selectFrom(ReplicaView.of(Collections.singletonList("A"))));
+        }
+    }
+
+    @Test
+    @DisplayName("Should forget replicas removed from the routing table")
+    void testRemovedReplica() {
+        Map<String, DataSource> reads = new LinkedHashMap<>();
+        reads.put("A", mock(DataSource.class));
+        balancer.routingTableChanged(RoutingTable.initial(mock(DataSource.class)).withReadDataSources(reads));
+
+        assertEquals(-1, balancer.getLoad("B"));
+        assertEquals(0, balancer.getLoad("A"));
+    }
+}
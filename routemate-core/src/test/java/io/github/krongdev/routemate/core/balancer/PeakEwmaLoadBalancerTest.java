@@ -0,0 +1,99 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PeakEwmaLoadBalancerTest {
+
+    private PeakEwmaLoadBalancer balancer;
+    private final ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+
+    @BeforeEach
+    void setUp() {
+        balancer = new PeakEwmaLoadBalancer(Duration.ofSeconds(10));
+
+        Map<String, DataSource> reads = new LinkedHashMap<>();
+        reads.put("A", mock(DataSource.class));
+        reads.put("B", mock(DataSource.class));
+        balancer.routingTableChanged(RoutingTable.initial(mock(DataSource.class)).withReadDataSources(reads));
+    }
+
+    @Test
+    @DisplayName("Should return null for empty or null list")
+    void testEmptyList() {
+        assertNull(balancer.select(null));
+        assertNull(balancer.select(Collections.emptyList()));
+        assertNull(balancer.selectFrom(ReplicaView.EMPTY));
+    }
+
+    @Test
+    @DisplayName("Should prefer the replica with lower observed latency")
+    void testPrefersFasterReplica() {
+        recordTransaction("A", TimeUnit.MILLISECONDS.toNanos(50));
+        recordTransaction("B", TimeUnit.MILLISECONDS.toNanos(2));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("B", balancer.selectFrom(view));
+        }
+    }
+
+    @Test
+    @DisplayName("Should react to a latency peak immediately")
+    void testPeakSensitivity() {
+        for (int i = 0; i < 5; i++) {
+            recordTransaction("A", TimeUnit.MILLISECONDS.toNanos(1));
+            recordTransaction("B", TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals("A", balancer.selectFrom(view));
+
+        // A single slow transaction on A should be enough to move traffic away
+        recordTransaction("A", TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(balancer.getCost("A") > balancer.getCost("B"));
+        assertEquals("B", balancer.selectFrom(view));
+    }
+
+    @Test
+    @DisplayName("Should account for in-flight connections")
+    void testInFlightPenalty() {
+        recordTransaction("A", TimeUnit.MILLISECONDS.toNanos(4));
+        recordTransaction("B", TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals("A", balancer.selectFrom(view));
+
+        balancer.connectionAcquired("A", 0);
+        balancer.connectionAcquired("A", 0);
+        assertEquals("B", balancer.selectFrom(view));
+    }
+
+    @Test
+    @DisplayName("Should not herd onto an unsampled replica with in-flight connections")
+    void testUnsampledReplicaCountsInFlight() {
+        recordTransaction("A", TimeUnit.MILLISECONDS.toNanos(5));
+
+        // B has no samples yet, but already holds several connections
+        for (int i = 0; i < 5; i++) {
+            balancer.connectionAcquired("B", 0);
+        }
+        assertTrue(balancer.getCost("B") > balancer.getCost("A"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("A", balancer.selectFrom(view));
+        }
+    }
+
+    private void recordTransaction(String key, long latencyNanos) {
+        balancer.connectionAcquired(key, 0);
+        balancer.connectionReleased(key, latencyNanos);
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PowerOfTwoChoicesLoadBalancerTest {
+
+    private PowerOfTwoChoicesLoadBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        balancer = new PowerOfTwoChoicesLoadBalancer();
+
+        Map<String, DataSource> reads = new LinkedHashMap<>();
+        reads.put("A", mock(DataSource.class));
+        reads.put("B", mock(DataSource.class));
+        reads.put("C", mock(DataSource.class));
+        balancer.routingTableChanged(RoutingTable.initial(mock(DataSource.class)).withReadDataSources(reads));
+    }
+
+    @Test
+    @DisplayName("Should return null for empty or null list")
+    void testEmptyList() {
+        assertNull(balancer.select(null));
+        assertNull(balancer.select(Collections.emptyList()));
+        assertNull(balancer.selectFrom(ReplicaView.EMPTY));
+    }
+
+    @Test
+    @DisplayName("Should pick the less loaded of two replicas")
+    void testTwoReplicas() {
+        balancer.connectionAcquired("A", 0);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+
+        // With two replicas both are always sampled
+        for (int i = 0; i < 20; i++) {
+            assertEquals("B", balancer.selectFrom(view));
+        }
+
+        balancer.connectionReleased("A", 0);
+        balancer.connectionAcquired("B", 0);
+        assertEquals(0, balancer.getInFlight("A"));
+        assertEquals("A", balancer.selectFrom(view));
+    }
+
+    @Test
+    @DisplayName("Should never pick the most loaded replica out of three")
+    void testAvoidsMostLoaded() {
+        for (int i = 0; i < 5; i++) {
+            balancer.connectionAcquired("C", 0);
+        }
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B", "C"));
+
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            selected.add(balancer.selectFrom(view));
+        }
+        assertFalse(selected.contains("C"));
+        assertEquals(Set.of("A", "B"), selected);
+    }
+}
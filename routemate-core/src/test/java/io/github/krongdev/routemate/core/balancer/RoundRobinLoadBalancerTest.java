@@ -38,6 +38,18 @@ class RoundRobinLoadBalancerTest {
         assertEquals("read-1", b2.select(keys));
     }
 
+    @Test
+    @DisplayName("Should cycle through a replica view")
+    void testRoundRobinView() {
+        RoundRobinLoadBalancer balancer = new RoundRobinLoadBalancer();
+        ReplicaView view = ReplicaView.of(Arrays.asList("read-1", "read-2"));
+
+        assertEquals("read-1", balancer.selectFrom(view));
+        assertEquals("read-2", balancer.selectFrom(view));
+        assertEquals("read-1", balancer.selectFrom(view));
+        assertNull(balancer.selectFrom(ReplicaView.EMPTY));
+    }
+
     @Test
     @DisplayName("Should be thread-safe")
     void testThreadSafety() throws InterruptedException {
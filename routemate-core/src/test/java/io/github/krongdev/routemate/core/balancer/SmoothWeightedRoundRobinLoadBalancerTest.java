@@ -0,0 +1,122 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmoothWeightedRoundRobinLoadBalancerTest {
+
+    @Test
+    @DisplayName("Should interleave picks smoothly")
+    void testSmoothSequence() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        weights.put("A", 5);
+        weights.put("B", 1);
+        weights.put("C", 1);
+
+        SmoothWeightedRoundRobinLoadBalancer lb = new SmoothWeightedRoundRobinLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B", "C"));
+
+        List<String> sequence = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            sequence.add(lb.selectFrom(view));
+        }
+
+        assertEquals(Arrays.asList("A", "A", "B", "A", "C", "A", "A"), sequence);
+    }
+
+    @Test
+    @DisplayName("Should respect large weights without expanding them")
+    void testLargeWeights() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 100);
+        weights.put("B", 300);
+
+        SmoothWeightedRoundRobinLoadBalancer lb = new SmoothWeightedRoundRobinLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            counts.merge(lb.selectFrom(view), 1, Integer::sum);
+        }
+
+        assertEquals(100, counts.get("A"));
+        assertEquals(300, counts.get("B"));
+    }
+
+    @Test
+    @DisplayName("Should only pick healthy keys")
+    void testHealthyOnly() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 3);
+        weights.put("B", 1);
+        weights.put("C", 2);
+
+        SmoothWeightedRoundRobinLoadBalancer lb = new SmoothWeightedRoundRobinLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("B", "C"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            counts.merge(lb.selectFrom(view), 1, Integer::sum);
+        }
+
+        assertNull(counts.get("A"));
+        assertEquals(10, counts.get("B"));
+        assertEquals(20, counts.get("C"));
+    }
+
+    @Test
+    @DisplayName("Should keep interleaving when callers alternate candidate views")
+    void testAlternatingViews() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 1);
+        weights.put("C", 1);
+
+        SmoothWeightedRoundRobinLoadBalancer lb = new SmoothWeightedRoundRobinLoadBalancer(weights);
+        ReplicaView all = ReplicaView.of(Arrays.asList("A", "B", "C"));
+        ReplicaView subset = ReplicaView.of(Arrays.asList("A", "B"));
+
+        // A subset pick must not restart the full view's sequence at its first replica
+        List<String> sequence = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            sequence.add(lb.selectFrom(all));
+            assertNotNull(lb.selectFrom(subset));
+        }
+
+        assertEquals(Arrays.asList("A", "B", "C", "A", "B", "C"), sequence);
+    }
+
+    @Test
+    @DisplayName("Should keep progress for list callers and apply weight updates")
+    void testListAndDynamicUpdates() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 1);
+
+        SmoothWeightedRoundRobinLoadBalancer lb = new SmoothWeightedRoundRobinLoadBalancer(weights);
+        List<String> keys = Arrays.asList("A", "B");
+        assertNotEquals(lb.select(keys), lb.select(keys));
+
+        Map<String, Integer> newWeights = new HashMap<>();
+        newWeights.put("A", 9);
+        newWeights.put("B", 0); // treated as 1
+        lb.updateWeights(newWeights);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            counts.merge(lb.select(keys), 1, Integer::sum);
+        }
+
+        assertEquals(9, counts.get("A"));
+        assertEquals(1, counts.get("B"));
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.krongdev.routemate.core.balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedRandomLoadBalancerTest {
+
+    @Test
+    @DisplayName("Should return null for empty or null list")
+    void testEmptyList() {
+        WeightedRandomLoadBalancer lb = new WeightedRandomLoadBalancer(Collections.emptyMap());
+        assertNull(lb.select(null));
+        assertNull(lb.select(Collections.emptyList()));
+        assertNull(lb.selectFrom(ReplicaView.EMPTY));
+    }
+
+    @Test
+    @DisplayName("Should approximate the configured weights")
+    void testWeightedDistribution() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 3);
+
+        WeightedRandomLoadBalancer lb = new WeightedRandomLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        int draws = 40_000;
+        for (int i = 0; i < draws; i++) {
+            counts.merge(lb.selectFrom(view), 1, Integer::sum);
+        }
+
+        double ratioB = counts.get("B") / (double) draws;
+        assertEquals(0.75, ratioB, 0.02);
+    }
+
+    @Test
+    @DisplayName("Should only pick healthy keys and rebuild on health changes")
+    void testHealthyOnly() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 10);
+        weights.put("B", 1);
+        weights.put("C", 1);
+
+        WeightedRandomLoadBalancer lb = new WeightedRandomLoadBalancer(weights);
+        assertNotNull(lb.selectFrom(ReplicaView.of(Arrays.asList("A", "B", "C"))));
+
+        List<String> healthy = Arrays.asList("B", "C");
+        ReplicaView view = ReplicaView.of(healthy);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(healthy.contains(lb.selectFrom(view)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply weight updates")
+    void testDynamicUpdates() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 1);
+
+        WeightedRandomLoadBalancer lb = new WeightedRandomLoadBalancer(weights);
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"));
+        lb.selectFrom(view);
+
+        Map<String, Integer> newWeights = new HashMap<>();
+        newWeights.put("A", 99);
+        newWeights.put("B", 1);
+        lb.updateWeights(newWeights);
+
+        int countA = 0;
+        int draws = 10_000;
+        for (int i = 0; i < draws; i++) {
+            if ("A".equals(lb.selectFrom(view))) {
+                countA++;
+            }
+        }
+        assertEquals(0.99, countA / (double) draws, 0.01);
+    }
+}
@@ -113,4 +113,20 @@ class WeightedRoundRobinLoadBalancerTest {
         assertEquals(9, counts.get("A"));
         assertEquals(1, counts.get("B"));
     }
+
+    @Test
+    @DisplayName("Should prefer weights carried by the view over its own")
+    void testViewWeightsWin() {
+        WeightedRoundRobinLoadBalancer lb = new WeightedRoundRobinLoadBalancer(Map.of("A", 1, "B", 1));
+        ReplicaView view = ReplicaView.of(Arrays.asList("A", "B"), Map.of("A", 3));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            counts.merge(lb.selectFrom(view), 1, Integer::sum);
+        }
+
+        // A uses the view weight, B falls back to the balancer weight
+        assertEquals(3, counts.get("A"));
+        assertEquals(1, counts.get("B"));
+    }
 }
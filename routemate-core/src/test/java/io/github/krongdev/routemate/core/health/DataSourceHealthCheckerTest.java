@@ -0,0 +1,121 @@
+package io.github.krongdev.routemate.core.health;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DataSourceHealthCheckerTest {
+
+    private static final Duration INTERVAL = Duration.ofMillis(20);
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+    private DataSourceRouter router;
+    private DataSource replica;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DataSourceHealthChecker checker;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(replica.getConnection()).thenReturn(connection);
+
+        router = new DataSourceRouter(mock(DataSource.class), new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", replica));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (checker != null) {
+            checker.shutdown();
+        }
+    }
+
+    @Test
+    void testTimedOutProbeIsRetriedOnceItReturns() throws Exception {
+        Connection connection = replica.getConnection();
+        when(replica.getConnection()).thenAnswer(invocation -> {
+            awaitUninterruptibly(release); // e.g. a driver that ignores interrupts
+            throw new SQLException("hung");
+        }).thenReturn(connection);
+
+        checker = new DataSourceHealthChecker(router, INTERVAL, TIMEOUT, null);
+        checker.start();
+
+        awaitUntil(() -> isUnhealthy());
+        // The hung probe is not piled up on
+        Thread.sleep(INTERVAL.toMillis() * 3);
+        verify(replica, times(2)).getConnection(); // including the stubbing call above
+
+        release.countDown();
+        awaitUntil(() -> !isUnhealthy());
+    }
+
+    @Test
+    void testProbeCancelledBeforeStartingIsRetried() throws Exception {
+        // A busy probe executor keeps the probe queued past its deadline
+        ExecutorService probeExecutor = Executors.newSingleThreadExecutor();
+        probeExecutor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+        checker = new DataSourceHealthChecker(router, INTERVAL, TIMEOUT, null, null, probeExecutor);
+        checker.start();
+
+        awaitUntil(() -> isUnhealthy());
+        verify(replica, never()).getConnection();
+
+        release.countDown();
+        awaitUntil(() -> !isUnhealthy());
+        verify(replica, atLeast(1)).getConnection();
+    }
+
+    private boolean isUnhealthy() {
+        return router.getRoutingTable().isUnhealthy("read1");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.krongdev.routemate.core.health;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PassiveFailureDetectorTest {
+
+    private DataSourceRouter router;
+    private DataSource readDataSource1;
+    private Connection read2Connection;
+    private PassiveFailureDetector detector;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        readDataSource1 = mock(DataSource.class);
+        DataSource readDataSource2 = mock(DataSource.class);
+        read2Connection = mock(Connection.class);
+        when(readDataSource2.getConnection()).thenReturn(read2Connection);
+
+        Map<String, DataSource> readDataSources = new LinkedHashMap<>();
+        readDataSources.put("read1", readDataSource1);
+        readDataSources.put("read2", readDataSource2);
+
+        router = new DataSourceRouter(mock(DataSource.class), new RoundRobinLoadBalancer());
+        router.setReadDataSources(readDataSources);
+        detector = new PassiveFailureDetector(router, 1, Duration.ZERO, 2);
+        router.setPassiveFailureDetector(detector);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    void testConnectionFailureTripsBreaker() throws SQLException {
+        when(readDataSource1.getConnection())
+                .thenThrow(new SQLTransientConnectionException("Connection refused", "08001", new SQLException()));
+        RoutingContext.set(RoutingContext.READ);
+
+        assertThrows(SQLException.class, () -> router.getConnection());
+
+        assertTrue(detector.isTripped("read1"));
+        assertTrue(router.getRoutingTable().isUnhealthy("read1"));
+    }
+
+    @Test
+    void testStatementFailureTripsBreaker() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(readDataSource1.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenThrow(new SQLNonTransientConnectionException("Communications link failure"));
+        router.setReportStatementFailures(true);
+        RoutingContext.set(RoutingContext.READ);
+
+        try (Connection routed = router.getConnection();
+                PreparedStatement ps = routed.prepareStatement("SELECT 1")) {
+            assertThrows(SQLException.class, ps::executeQuery);
+        }
+
+        assertTrue(router.getRoutingTable().isUnhealthy("read1"));
+    }
+
+    @Test
+    void testStatementsNotWrappedByDefault() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(readDataSource1.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        RoutingContext.set(RoutingContext.READ);
+
+        try (Connection routed = router.getConnection()) {
+            assertSame(statement, routed.prepareStatement("SELECT 1"));
+        }
+    }
+
+    @Test
+    void testNonConnectivityFailureIgnored() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(readDataSource1.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenThrow(new SQLSyntaxErrorException("bad sql", "42000"));
+        RoutingContext.set(RoutingContext.READ);
+
+        try (Connection routed = router.getConnection()) {
+            assertThrows(SQLException.class, () -> routed.prepareStatement("SELEC 1"));
+        }
+
+        assertFalse(detector.isTripped("read1"));
+        assertFalse(router.getRoutingTable().isUnhealthy("read1"));
+    }
+
+    @Test
+    void testHalfOpenTrialsCloseBreaker() throws Exception {
+        detector = new PassiveFailureDetector(router, 1, Duration.ofMillis(100), 2);
+        router.setPassiveFailureDetector(detector);
+        when(readDataSource1.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        RoutingContext.set(RoutingContext.READ);
+
+        detector.connectionFailed("read1", new SQLException("Connection reset", "08S01"));
+        assertTrue(router.getRoutingTable().isUnhealthy("read1"));
+        assertSame(read2Connection, target(router.getConnection()));
+
+        Thread.sleep(150);
+
+        // Two trials are admitted, then the unhealthy replica is skipped again
+        Connection trial1 = router.getConnection();
+        Connection trial2 = router.getConnection();
+        assertSame(read2Connection, target(router.getConnection()));
+
+        trial1.close();
+        assertTrue(detector.isTripped("read1"));
+        trial2.close();
+
+        assertFalse(detector.isTripped("read1"));
+        assertFalse(router.getRoutingTable().isUnhealthy("read1"));
+    }
+
+    @Test
+    void testOnlyTrialConnectionsCountAsTrials() throws Exception {
+        detector = new PassiveFailureDetector(router, 1, Duration.ofMillis(100), 2);
+        router.setPassiveFailureDetector(detector);
+        when(readDataSource1.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        RoutingContext.set(RoutingContext.READ);
+
+        Connection beforeTrip = router.getConnection();
+        assertSame(read2Connection, target(router.getConnection()));
+        detector.connectionFailed("read1", new SQLException("Connection reset", "08S01"));
+        Thread.sleep(150);
+
+        Connection trial = router.getConnection();
+        beforeTrip.close();
+        trial.close();
+
+        // One trial of two came back; the connection from before the trip does not count
+        assertTrue(detector.isTripped("read1"));
+    }
+
+    private static Connection target(Connection connection) {
+        return ((ConnectionProxy) connection).getTargetConnection();
+    }
+
+    @Test
+    void testFailedTrialReopensBreaker() {
+        detector.connectionFailed("read1", new SQLException("Connection reset", "08S01"));
+        assertEquals("read1", detector.trialCandidate());
+
+        detector.connectionFailed("read1", new SQLException("Connection reset", "08S01"));
+        detector.connectionReleased("read1", 0);
+        detector.connectionReleased("read1", 0);
+
+        assertTrue(detector.isTripped("read1"));
+        assertTrue(router.getRoutingTable().isUnhealthy("read1"));
+    }
+
+    @Test
+    void testHealthCheckRecoveryClosesBreaker() {
+        detector.connectionFailed("read1", new SQLException("Connection reset", "08S01"));
+
+        router.markHealthy("read1");
+
+        assertFalse(detector.isTripped("read1"));
+    }
+
+    @Test
+    void testPoolSaturationIsNotConnectivityFailure() {
+        assertFalse(ConnectivityFailures.isConnectivityFailure(
+                new SQLTransientConnectionException("Connection is not available, request timed out")));
+        assertTrue(ConnectivityFailures.isConnectivityFailure(
+                new SQLException("wrapped", new SQLNonTransientConnectionException("refused"))));
+    }
+}
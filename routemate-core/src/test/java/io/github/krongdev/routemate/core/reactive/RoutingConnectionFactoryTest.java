@@ -0,0 +1,108 @@
+package io.github.krongdev.routemate.core.reactive;
+
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RoutingConnectionFactoryTest {
+
+    private RoutingConnectionFactory router;
+    private DatabaseClient client;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory write = database("write");
+        ConnectionFactory replica = database("replica");
+        router = new RoutingConnectionFactory(write, new RoundRobinLoadBalancer());
+        router.setReadConnectionFactories(Map.of("read1", replica));
+        client = DatabaseClient.create(router);
+    }
+
+    private static ConnectionFactory database(String name) {
+        ConnectionFactory factory = H2ConnectionFactory.inMemory(name + "-" + UUID.randomUUID());
+        DatabaseClient setup = DatabaseClient.create(factory);
+        setup.sql("CREATE TABLE node (name VARCHAR(20))").then()
+                .then(setup.sql("INSERT INTO node VALUES ('" + name + "')").then())
+                .block();
+        return factory;
+    }
+
+    private Mono<String> node() {
+        return client.sql("SELECT name FROM node").map(row -> row.get(0, String.class)).one();
+    }
+
+    @Test
+    void testRoutesFromReactorContext() {
+        assertThat(node().block()).isEqualTo("write");
+        assertThat(node().contextWrite(ReactiveRoutingContext.read()).block()).isEqualTo("replica");
+        assertThat(node().contextWrite(ReactiveRoutingContext.with("read1")).block()).isEqualTo("replica");
+
+        // The innermost context write wins
+        assertThat(node().contextWrite(ReactiveRoutingContext.write())
+                .contextWrite(ReactiveRoutingContext.read()).block()).isEqualTo("write");
+    }
+
+    @Test
+    void testFallsBackToWriteWithoutHealthyReplica() {
+        router.markUnhealthy("read1");
+        assertThat(node().contextWrite(ReactiveRoutingContext.read()).block()).isEqualTo("write");
+
+        router.markHealthy("read1");
+        assertThat(node().contextWrite(ReactiveRoutingContext.read()).block()).isEqualTo("replica");
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        RoutingR2dbcTransactionManager transactionManager = new RoutingR2dbcTransactionManager(router);
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+
+        assertThat(TransactionalOperator.create(transactionManager, readOnly).transactional(node()).block())
+                .isEqualTo("replica");
+        assertThat(TransactionalOperator.create(transactionManager).transactional(node()).block())
+                .isEqualTo("write");
+    }
+
+    @Test
+    void testReplacingReadsRebuildsWeights() {
+        ConnectionFactory replica = router.getReadConnectionFactories().get("read1");
+        router.addReadConnectionFactory("read1", replica, 3);
+        router.addReadConnectionFactory("read2", database("read2"), 5);
+
+        router.setReadConnectionFactories(Map.of("read1", replica, "read3", database("read3")));
+
+        ReplicaView healthy = router.getHealthyReplicas();
+        assertThat(healthy.asList()).containsExactlyInAnyOrder("read1", "read3");
+        assertThat(healthy.weight(healthy.indexOf("read1"), null)).isEqualTo(3);
+        assertThat(healthy.weight(healthy.indexOf("read3"), Map.of("read3", 7))).isEqualTo(1);
+    }
+
+    @Test
+    void testMirrorsHealthOfDataSourceRouter() {
+        DataSourceRouter dataSourceRouter = new DataSourceRouter(mock(DataSource.class), new RoundRobinLoadBalancer());
+        dataSourceRouter.setReadDataSources(Map.of("read1", mock(DataSource.class)));
+        dataSourceRouter.addRoutingListener(router);
+
+        dataSourceRouter.markUnhealthy("read1");
+        assertThat(router.getHealthyReplicas().isEmpty()).isTrue();
+        assertThat(node().contextWrite(ReactiveRoutingContext.read()).block()).isEqualTo("write");
+
+        dataSourceRouter.markHealthy("read1");
+        assertThat(router.getHealthyReplicas().asList()).containsExactly("read1");
+    }
+}
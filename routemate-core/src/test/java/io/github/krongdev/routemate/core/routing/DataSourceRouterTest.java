@@ -1,17 +1,42 @@
 package io.github.krongdev.routemate.core.routing;
 
+import io.github.krongdev.routemate.core.balancer.ReplicaView;
 import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class DataSourceRouterTest {
 
@@ -54,6 +79,217 @@ class DataSourceRouterTest {
         assertTrue(key.equals("read1") || key.equals("read2"));
     }
 
+    @Test
+    void testUnhealthyReplicaExcluded() {
+        router.markUnhealthy("read1");
+        RoutingContext.set(RoutingContext.READ);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("read2", router.determineCurrentLookupKey());
+        }
+
+        router.markUnhealthy("read2");
+        assertEquals("WRITE", router.determineCurrentLookupKey());
+
+        router.markHealthy("read1");
+        assertEquals("read1", router.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testMembershipChangesSwapRoutingTable() {
+        RoutingTable before = router.getRoutingTable();
+        DataSource readDataSource3 = mock(DataSource.class);
+
+        router.addReadDataSource("read3", readDataSource3, 2);
+        RoutingTable added = router.getRoutingTable();
+        assertTrue(added.getVersion() > before.getVersion());
+        assertEquals(3, added.getHealthyReplicas().size());
+        assertEquals(2, added.getWeights().get("read3"));
+        assertEquals(readDataSource3, router.getDataSource("read3"));
+
+        router.removeReadDataSource("read3");
+        RoutingTable removed = router.getRoutingTable();
+        assertTrue(removed.getVersion() > added.getVersion());
+        assertEquals(2, removed.getReadKeys().size());
+        assertNull(router.getDataSource("read3"));
+
+        // Previously published tables are immutable snapshots
+        assertEquals(3, added.getReadKeys().size());
+    }
+
+    @Test
+    void testListenersReceiveEachSwappedTableOnce() throws Exception {
+        Set<Long> versions = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new CopyOnWriteArrayList<>();
+        router.addRoutingListener(new RoutingListener() {
+            @Override
+            public void routingTableChanged(RoutingTable table) {
+                if (!versions.add(table.getVersion())) {
+                    duplicates.add(table.getVersion());
+                }
+            }
+        });
+
+        int threads = 4;
+        int changes = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * changes;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= changes; i++) {
+                        router.updateWeights(Map.of("read1", offset + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(duplicates.isEmpty(), "tables delivered twice: " + duplicates);
+        assertEquals(threads * changes + 1, versions.size());
+    }
+
+    @Test
+    void testTargetDataSourceResolvedFromTable() {
+        RoutingContext.set(RoutingContext.READ);
+        DataSource target = router.determineTargetDataSource();
+        assertTrue(target == readDataSource1 || target == readDataSource2);
+
+        RoutingContext.clear();
+        assertEquals(writeDataSource, router.determineTargetDataSource());
+    }
+
+    @Test
+    void testListenersObserveConnectionLifecycle() throws Exception {
+        Connection physical = mock(Connection.class);
+        when(writeDataSource.getConnection()).thenReturn(physical);
+
+        List<String> events = new ArrayList<>();
+        router.addRoutingListener(new RoutingListener() {
+            @Override
+            public void connectionAcquired(String key, long acquireNanos) {
+                events.add("acquired:" + key);
+            }
+
+            @Override
+            public void connectionReleased(String key, long heldNanos) {
+                events.add("released:" + key);
+            }
+        });
+
+        Connection connection = router.getConnection();
+        connection.close();
+        connection.close();
+
+        verify(physical, times(2)).close();
+        assertEquals(List.of("acquired:WRITE", "released:WRITE"), events);
+    }
+
+    @Test
+    void testConnectionsOnlyWrappedWhenReleaseIsObserved() throws Exception {
+        Connection physical = mock(Connection.class);
+        when(writeDataSource.getConnection()).thenReturn(physical);
+
+        List<String> events = new ArrayList<>();
+        router.addRoutingListener(new RoutingListener() {
+            @Override
+            public void connectionAcquired(String key, long acquireNanos) {
+                events.add("acquired:" + key);
+            }
+        });
+        assertSame(physical, router.getConnection());
+
+        // A listener that only tracks replicas does not wrap WRITE either
+        router.addRoutingListener(new RoutingListener() {
+            @Override
+            public void connectionReleased(String key, long heldNanos) {
+                events.add("released:" + key);
+            }
+
+            @Override
+            public boolean observesWriteConnections() {
+                return false;
+            }
+        });
+        router.getConnection().close();
+
+        assertEquals(List.of("acquired:WRITE", "acquired:WRITE"), events);
+    }
+
+    @Test
+    void testReplicationLagLimitsRotation() {
+        router.setMaxReplicationLag(Duration.ofSeconds(30));
+        router.updateReplicationLag("read1", Duration.ofSeconds(90));
+        router.updateReplicationLag("read2", Duration.ofSeconds(1));
+
+        RoutingContext.set(RoutingContext.READ);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("read2", router.determineCurrentLookupKey());
+        }
+        RoutingContext.clear();
+
+        // Latency-tolerant reads may still use the lagging replica
+        RoutingContext.set(RoutingContext.READ, Duration.ofMinutes(5));
+        Set<Object> tolerant = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            tolerant.add(router.determineCurrentLookupKey());
+        }
+        assertEquals(Set.of("read1", "read2"), tolerant);
+        RoutingContext.clear();
+
+        // Critical reads fall back to WRITE when no replica is fresh enough
+        RoutingContext.set(RoutingContext.READ, Duration.ofMillis(500));
+        assertEquals("WRITE", router.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadYourWrites() {
+        router.setReadYourWritesWindow(Duration.ofSeconds(5));
+        router.updateReplicationLag("read1", Duration.ofSeconds(10));
+        router.updateReplicationLag("read2", Duration.ofMillis(1));
+        RoutingContext.set(RoutingContext.READ);
+
+        try {
+            // The write happened before read2's lag measurement, read1 is behind it
+            SessionConsistency.recordWrite(System.currentTimeMillis() - 1_000);
+            for (int i = 0; i < 4; i++) {
+                assertEquals("read2", router.determineCurrentLookupKey());
+            }
+
+            // A fully caught-up replica is eligible like any other
+            router.updateReplicationLag("read1", Duration.ZERO);
+            Set<Object> caughtUp = new HashSet<>();
+            for (int i = 0; i < 4; i++) {
+                caughtUp.add(router.determineCurrentLookupKey());
+            }
+            assertEquals(Set.of("read1", "read2"), caughtUp);
+
+            // A coarse measurement only covers writes older than its granularity, even at zero lag
+            router.updateReplicationLag("read2", Duration.ofMillis(1), Duration.ofSeconds(2));
+            assertEquals("read1", router.determineCurrentLookupKey());
+            router.updateReplicationLag("read1", Duration.ZERO, Duration.ofSeconds(2));
+            assertEquals("WRITE", router.determineCurrentLookupKey());
+
+            // A write after the last measurement is not visible anywhere yet
+            router.updateReplicationLag("read2", Duration.ofMillis(1));
+            SessionConsistency.recordWrite(System.currentTimeMillis() + 1_000);
+            assertEquals("WRITE", router.determineCurrentLookupKey());
+        } finally {
+            SessionConsistency.reset();
+        }
+
+        Set<Object> keys = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(router.determineCurrentLookupKey());
+        }
+        assertEquals(Set.of("read1", "read2"), keys);
+    }
+
     @Test
     void testFallbackToWrite() {
         // No Read Data Sources
@@ -62,4 +298,125 @@ class DataSourceRouterTest {
         Object key = emptyRouter.determineCurrentLookupKey();
         assertEquals("WRITE", key);
     }
+
+    @Test
+    void testFailoverToNextReplica() throws Exception {
+        Connection read2Connection = mock(Connection.class);
+        when(readDataSource1.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        when(readDataSource2.getConnection()).thenReturn(read2Connection);
+        router.setFailover(2, Duration.ofSeconds(5));
+        RoutingContext.set(RoutingContext.READ);
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(read2Connection, router.getConnection());
+        }
+    }
+
+    @Test
+    void testFailoverFallsBackToWrite() throws Exception {
+        Connection writeConnection = mock(Connection.class);
+        when(readDataSource1.getConnection()).thenThrow(new SQLTransientConnectionException("read1 down"));
+        when(readDataSource2.getConnection()).thenThrow(new SQLTransientConnectionException("read2 down"));
+        when(writeDataSource.getConnection()).thenReturn(writeConnection);
+        router.setFailover(1, Duration.ofSeconds(5));
+        RoutingContext.set(RoutingContext.READ);
+
+        assertSame(writeConnection, router.getConnection());
+        verify(readDataSource1, times(1)).getConnection();
+        verify(readDataSource2, times(1)).getConnection();
+    }
+
+    @Test
+    void testFailoverDisabledOrExpired() throws Exception {
+        SQLException failure = new SQLTransientConnectionException("read1 down");
+        when(readDataSource1.getConnection()).thenThrow(failure);
+        when(readDataSource2.getConnection()).thenThrow(failure);
+        RoutingContext.set(RoutingContext.READ);
+
+        assertSame(failure, assertThrows(SQLException.class, () -> router.getConnection()));
+
+        router.setFailover(2, Duration.ZERO);
+        assertSame(failure, assertThrows(SQLException.class, () -> router.getConnection()));
+        verify(writeDataSource, never()).getConnection();
+    }
+
+    @Test
+    void testListenersObserveRoutingDecisions() {
+        List<String> events = new ArrayList<>();
+        router.addRoutingListener(new RoutingListener() {
+            @Override
+            public void replicaSelected(String key, long selectNanos) {
+                events.add("selected:" + key);
+            }
+
+            @Override
+            public void fellBackToWrite(FallbackReason reason) {
+                events.add("fallback:" + reason);
+            }
+
+            @Override
+            public void healthChanged(String key, boolean healthy) {
+                events.add(key + (healthy ? ":healthy" : ":unhealthy"));
+            }
+        });
+        RoutingContext.set(RoutingContext.READ);
+
+        router.markUnhealthy("read1");
+        router.markUnhealthy("read1");
+        router.determineCurrentLookupKey();
+        router.markUnhealthy("read2");
+        router.determineCurrentLookupKey();
+        router.markHealthy("read1");
+
+        assertEquals(List.of("read1:unhealthy", "selected:read2", "read2:unhealthy",
+                "fallback:NO_HEALTHY_REPLICA", "read1:healthy"), events);
+    }
+
+    @Test
+    void testTieredRoutingPrefersLocalTierThenSpills() {
+        HikariDataSource local = mock(HikariDataSource.class);
+        HikariPoolMXBean localPool = mock(HikariPoolMXBean.class);
+        when(local.getHikariPoolMXBean()).thenReturn(localPool);
+        router.addReadDataSource("local", local, 1);
+        router.updateTiers(Map.of("local", 0, "read1", 1, "read2", 1));
+        RoutingContext.set(RoutingContext.READ);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("local", router.determineCurrentLookupKey());
+        }
+
+        // Callers queued on the local pool: spill to the next tier
+        when(localPool.getThreadsAwaitingConnection()).thenReturn(2);
+        Set<Object> keys = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(router.determineCurrentLookupKey());
+        }
+        assertEquals(Set.of("read1", "read2"), keys);
+
+        // Unhealthy remote tier: WRITE is the last tier
+        router.markUnhealthy("read1");
+        router.markUnhealthy("read2");
+        assertEquals("WRITE", router.determineCurrentLookupKey());
+
+        when(localPool.getThreadsAwaitingConnection()).thenReturn(0);
+        assertEquals("local", router.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testTierSplitsAndSubsetsAreCachedPerTable() {
+        router.addReadDataSource("local", mock(DataSource.class), 1);
+        router.updateTiers(Map.of("local", 0, "read1", 1, "read2", 1));
+        RoutingTable table = router.getRoutingTable();
+
+        ReplicaView bounded = table.getReplicasWithin(5_000);
+        List<ReplicaView> tiers = table.getTiersOf(bounded);
+        assertEquals(2, tiers.size());
+        assertSame(tiers, table.getTiersOf(bounded));
+
+        ReplicaView remote = tiers.get(1);
+        ReplicaView withoutFirst = table.getTierWithout(remote, 1L);
+        assertEquals(List.of(remote.get(1)), withoutFirst.asList());
+        assertSame(withoutFirst, table.getTierWithout(remote, 1L));
+        assertSame(remote, table.getTierWithout(remote, 0L));
+    }
 }
@@ -0,0 +1,75 @@
+package io.github.krongdev.routemate.core.routing;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LazyRoutingDataSourceTest {
+
+    private DataSource writeDataSource;
+    private DataSource readDataSource;
+    private Connection readConnection;
+    private LazyRoutingDataSource lazy;
+    private TransactionTemplate template;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        writeDataSource = mock(DataSource.class);
+        readDataSource = mock(DataSource.class);
+        readConnection = mock(Connection.class);
+        when(writeDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(readDataSource.getConnection()).thenReturn(readConnection);
+
+        DataSourceRouter router = new DataSourceRouter(writeDataSource, new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", readDataSource));
+
+        lazy = new LazyRoutingDataSource(router);
+        lazy.setDefaultAutoCommit(true);
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        template = new TransactionTemplate(new DataSourceTransactionManager(lazy));
+    }
+
+    @Test
+    void testTransactionWithoutStatementsAcquiresNothing() throws SQLException {
+        template.setReadOnly(true);
+        template.executeWithoutResult(status -> {
+        });
+        template.setReadOnly(false);
+        template.executeWithoutResult(status -> {
+        });
+
+        verify(readDataSource, never()).getConnection();
+        verify(writeDataSource, never()).getConnection();
+    }
+
+    @Test
+    void testReadOnlyStateRoutesAtFirstStatement() throws SQLException {
+        template.setReadOnly(true);
+        template.executeWithoutResult(status -> {
+            try {
+                DataSourceUtils.getConnection(lazy).prepareStatement("SELECT 1");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        verify(readDataSource, times(1)).getConnection();
+        verify(readConnection, times(1)).prepareStatement(anyString());
+        verify(writeDataSource, never()).getConnection();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.krongdev.routemate.core.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReplicaDrainerTest {
+
+    private DataSourceRouter router;
+    private HikariDataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new HikariDataSource();
+        replica.setJdbcUrl("jdbc:h2:mem:drain;DB_CLOSE_DELAY=-1");
+        replica.setMaximumPoolSize(2);
+        replica.setMinimumIdle(1);
+
+        router = new DataSourceRouter(mock(DataSource.class), new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", replica));
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+        replica.close();
+    }
+
+    @Test
+    void testPoolClosesOnceConnectionsAreReturned() throws Exception {
+        Connection inFlight = replica.getConnection();
+
+        ReplicaDrainer.Drain drain = router.drainReadDataSource("read1", Duration.ofSeconds(30));
+        assertThat(router.getDataSource("read1")).isNull();
+        assertThat(drain.getState()).isEqualTo(ReplicaDrainer.State.DRAINING);
+        assertThat(drain.getActiveConnections()).isEqualTo(1);
+        assertThat(router.getDrainer().getDrain("read1")).isSameAs(drain);
+
+        // The in-flight query still completes on its connection
+        Thread.sleep(150);
+        assertThat(replica.isClosed()).isFalse();
+        assertThat(inFlight.createStatement().execute("SELECT 1")).isTrue();
+
+        inFlight.close();
+        assertThat(drain.getCompletion().get(5, TimeUnit.SECONDS)).isEqualTo(ReplicaDrainer.State.CLOSED);
+        assertThat(replica.isClosed()).isTrue();
+    }
+
+    @Test
+    void testPoolIsForceClosedAtDeadline() throws Exception {
+        Connection inFlight = replica.getConnection();
+
+        ReplicaDrainer.Drain drain = router.drainReadDataSource("read1", Duration.ofMillis(200));
+        assertThat(drain.getCompletion().get(5, TimeUnit.SECONDS)).isEqualTo(ReplicaDrainer.State.FORCE_CLOSED);
+        assertThat(drain.getActiveConnections()).isEqualTo(1);
+        assertThat(replica.isClosed()).isTrue();
+        inFlight.close();
+    }
+
+    @Test
+    void testRouterShutdownForceClosesDrains() throws Exception {
+        Connection inFlight = replica.getConnection();
+
+        ReplicaDrainer.Drain drain = router.drainReadDataSource("read1", Duration.ofSeconds(30));
+        router.shutdown();
+        assertThat(drain.getCompletion().get(5, TimeUnit.SECONDS)).isEqualTo(ReplicaDrainer.State.FORCE_CLOSED);
+        assertThat(replica.isClosed()).isTrue();
+        inFlight.close();
+    }
+
+    @Test
+    void testUnknownKeyHasNothingToDrain() {
+        assertThat(router.removeReadDataSource("missing")).isNull();
+        assertThat(router.getDrainer().getDrains()).isEmpty();
+    }
+}
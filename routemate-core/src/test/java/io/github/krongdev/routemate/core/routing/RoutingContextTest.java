@@ -4,7 +4,13 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -64,6 +70,44 @@ class RoutingContextTest {
         assertThat(RoutingContext.get()).isNull();
     }
 
+    @Test
+    @DisplayName("Should carry a staleness bound per level")
+    void testMaxStaleness() {
+        assertThat(RoutingContext.getMaxStalenessMillis()).isEqualTo(RoutingContext.NO_STALENESS_BOUND);
+
+        try (RoutingContext.ContextToken outer = RoutingContext.use(RoutingContext.READ, Duration.ofSeconds(10))) {
+            assertThat(RoutingContext.getMaxStalenessMillis()).isEqualTo(10_000);
+
+            try (RoutingContext.ContextToken inner = RoutingContext.use(RoutingContext.READ)) {
+                assertThat(RoutingContext.getMaxStalenessMillis()).isEqualTo(RoutingContext.NO_STALENESS_BOUND);
+            }
+
+            assertThat(RoutingContext.getMaxStalenessMillis()).isEqualTo(10_000);
+        }
+
+        assertThatThrownBy(() -> RoutingContext.set(RoutingContext.READ, Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should carry an affinity key per level")
+    void testAffinityKey() {
+        assertThat(RoutingContext.getAffinityKey()).isNull();
+
+        try (RoutingContext.ContextToken outer = RoutingContext.use(RoutingContext.READ, "customer-1")) {
+            assertThat(RoutingContext.get()).isEqualTo(RoutingContext.READ);
+            assertThat(RoutingContext.getAffinityKey()).isEqualTo("customer-1");
+
+            try (RoutingContext.ContextToken inner = RoutingContext.use(RoutingContext.READ)) {
+                assertThat(RoutingContext.getAffinityKey()).isNull();
+            }
+
+            assertThat(RoutingContext.getAffinityKey()).isEqualTo("customer-1");
+        }
+
+        assertThat(RoutingContext.getAffinityKey()).isNull();
+    }
+
     @Test
     @DisplayName("Should provide snapshot of stack")
     void testSnapshot() {
@@ -77,4 +121,94 @@ class RoutingContextTest {
         snapshot.clear();
         assertThat(RoutingContext.get()).isEqualTo("B");
     }
+
+    @Test
+    @DisplayName("Should propagate the routing stack to other threads")
+    void testPropagation() throws Exception {
+        ExecutorService executor = RoutingContextExecutorService.wrap(Executors.newSingleThreadExecutor());
+        try {
+            RoutingContext.set(RoutingContext.WRITE);
+            RoutingContext.set(RoutingContext.READ, Duration.ofSeconds(3));
+
+            Future<String> submitted = executor.submit(
+                    () -> RoutingContext.get() + ":" + RoutingContext.getMaxStalenessMillis());
+            String supplied = CompletableFuture.supplyAsync(RoutingContext.wrapSupplier(() -> RoutingContext.get())).get();
+
+            assertThat(submitted.get()).isEqualTo("READ:3000");
+            assertThat(supplied).isEqualTo("READ");
+
+            // The pool thread is left clean
+            RoutingContext.clear();
+            RoutingContext.clear();
+            assertThat(executor.submit(() -> RoutingContext.get()).get()).isNull();
+            assertThat(executor.submit(() -> SessionConsistency.getLastWriteMillis()).get()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore the previous context when a snapshot scope closes")
+    void testSnapshotRestore() {
+        RoutingContext.set(RoutingContext.READ);
+        RoutingContext.Snapshot snapshot = RoutingContext.capture();
+        RoutingContext.clear();
+
+        RoutingContext.set("OTHER");
+        try (RoutingContext.Scope ignored = snapshot.restore()) {
+            assertThat(RoutingContext.get()).isEqualTo(RoutingContext.READ);
+        }
+        assertThat(RoutingContext.get()).isEqualTo("OTHER");
+    }
+
+    @Test
+    @DisplayName("Should push a level for the duration of runWith and callWith")
+    void testRunWith() throws Exception {
+        RoutingContext.set(RoutingContext.WRITE);
+
+        RoutingContext.runWith(RoutingContext.READ, Duration.ofSeconds(2), () -> {
+            assertThat(RoutingContext.get()).isEqualTo(RoutingContext.READ);
+            assertThat(RoutingContext.getMaxStalenessMillis()).isEqualTo(2_000);
+
+            // Levels set inside the task nest on top of the bound level
+            RoutingContext.set("INNER");
+            assertThat(RoutingContext.getStackSnapshot()).containsExactly("INNER", "READ", "WRITE");
+            RoutingContext.clear();
+            assertThat(RoutingContext.get()).isEqualTo(RoutingContext.READ);
+
+            // and do not outlive it when left behind
+            RoutingContext.set("LEAKED");
+        });
+        assertThat(RoutingContext.getStackSnapshot()).containsExactly("WRITE");
+
+        String key = RoutingContext.callWith(RoutingContext.READ, RoutingContext::get);
+        assertThat(key).isEqualTo(RoutingContext.READ);
+        assertThatThrownBy(() -> RoutingContext.callWith(RoutingContext.READ, () -> {
+            throw new IOException("boom");
+        })).isInstanceOf(IOException.class);
+        assertThat(RoutingContext.get()).isEqualTo(RoutingContext.WRITE);
+
+        Object affinity = RoutingContext.callWith(RoutingContext.READ, null, "customer-7",
+                RoutingContext::getAffinityKey);
+        assertThat(affinity).isEqualTo("customer-7");
+        assertThatThrownBy(() -> RoutingContext.callWith(RoutingContext.READ, null, null, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(RoutingContext.getStackSnapshot()).containsExactly("WRITE");
+    }
+
+    @Test
+    @DisplayName("Should restore a nested stack captured from another thread")
+    void testSnapshotNested() throws Exception {
+        RoutingContext.set(RoutingContext.WRITE);
+        RoutingContext.set(RoutingContext.READ);
+        Runnable task = RoutingContext.wrap(() -> {
+            assertThat(RoutingContext.getStackSnapshot()).containsExactly("READ", "WRITE");
+            RoutingContext.clear();
+            assertThat(RoutingContext.get()).isEqualTo(RoutingContext.WRITE);
+        });
+
+        CompletableFuture.runAsync(task).get();
+        assertThat(RoutingContext.getStackSnapshot()).containsExactly("READ", "WRITE");
+    }
 }
@@ -0,0 +1,82 @@
+package io.github.krongdev.routemate.core.routing;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SlowStartTest {
+
+    private DataSourceRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new DataSourceRouter(mock(DataSource.class), new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", mock(DataSource.class)));
+        RoutingContext.set(RoutingContext.READ);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+        RoutingContext.clear();
+    }
+
+    @Test
+    void testAddedReplicaIsRampedUp() {
+        SlowStart slowStart = new SlowStart(Duration.ofHours(1), SlowStart.Curve.LINEAR);
+        router.setSlowStart(slowStart);
+        assertThat(slowStart.getWarmingReplicas()).isEmpty();
+
+        router.addReadDataSource("read2", mock(DataSource.class), 1);
+        assertThat(slowStart.getWarmingReplicas()).containsOnlyKeys("read2");
+
+        // Round-robin would give it every other read; at the start of the window it gets almost none
+        int read2 = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if ("read2".equals(router.determineCurrentLookupKey())) {
+                read2++;
+            }
+        }
+        assertThat(read2).isLessThan(20);
+
+        // Admission happens before balancing, so reads leave the routing table alone
+        long version = router.getRoutingTable().getVersion();
+        router.determineCurrentLookupKey();
+        assertThat(router.getRoutingTable().getVersion()).isEqualTo(version);
+
+        router.removeReadDataSource("read2");
+        assertThat(slowStart.getWarmingReplicas()).isEmpty();
+    }
+
+    @Test
+    void testRecoveredReplicaWarmsUpOverWindow() throws InterruptedException {
+        SlowStart slowStart = new SlowStart(Duration.ofMillis(50), SlowStart.Curve.EXPONENTIAL);
+        router.setSlowStart(slowStart);
+        router.markUnhealthy("read1");
+        assertThat(router.determineCurrentLookupKey()).isEqualTo(RoutingContext.WRITE);
+
+        router.markHealthy("read1");
+        assertThat(slowStart.getWarmingReplicas()).containsOnlyKeys("read1");
+        // The only candidate still serves reads while warming up
+        assertThat(router.determineCurrentLookupKey()).isEqualTo("read1");
+
+        Thread.sleep(100);
+        assertThat(router.determineCurrentLookupKey()).isEqualTo("read1");
+        assertThat(slowStart.getWarmingReplicas()).isEmpty();
+    }
+
+    @Test
+    void testCurves() {
+        assertThat(SlowStart.Curve.LINEAR.factor(0.5)).isEqualTo(0.5);
+        assertThat(SlowStart.Curve.EXPONENTIAL.factor(0.5)).isEqualTo(1.0 / 32);
+        assertThat(SlowStart.Curve.EXPONENTIAL.factor(1.0)).isEqualTo(1.0);
+    }
+}
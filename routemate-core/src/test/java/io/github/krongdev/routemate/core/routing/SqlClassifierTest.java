@@ -0,0 +1,57 @@
+package io.github.krongdev.routemate.core.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlClassifierTest {
+
+    private final SqlClassifier classifier = new SqlClassifier();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT * FROM users WHERE id = ?",
+            "  select name from users",
+            "/* list */ SELECT id FROM orders",
+            "-- report\nSELECT count(*) FROM orders",
+            "(SELECT id FROM a) UNION (SELECT id FROM b)",
+            "WITH recent AS (SELECT * FROM orders) SELECT * FROM recent",
+            "SELECT updated_at, deleted FROM users"
+    })
+    void testPlainReads(String sql) {
+        assertThat(classifier.isRead(sql)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "UPDATE users SET name = ?",
+            "INSERT INTO users VALUES (?)",
+            "SELECT * FROM users WHERE id = ? FOR UPDATE",
+            "select * from users where id = ? for no key update",
+            "SELECT * FROM users FOR SHARE",
+            "SELECT * FROM users LOCK IN SHARE MODE",
+            "SELECT * FROM users WITH (UPDLOCK) WHERE id = ?",
+            "SELECT * INTO backup FROM users",
+            "SELECT nextval('order_seq')",
+            "SELECT LAST_INSERT_ID()",
+            "SELECT pg_advisory_lock(42)",
+            "WITH moved AS (DELETE FROM queue RETURNING *) SELECT * FROM moved",
+            "CALL refresh()",
+            "SELECTION",
+            ""
+    })
+    void testEverythingElseStaysOnWrite(String sql) {
+        assertThat(classifier.isRead(sql)).isFalse();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        SqlClassifier small = new SqlClassifier(2);
+        for (int i = 0; i < 10; i++) {
+            assertThat(small.isRead("SELECT " + i)).isTrue();
+        }
+        assertThat(small.isRead(null)).isFalse();
+    }
+}
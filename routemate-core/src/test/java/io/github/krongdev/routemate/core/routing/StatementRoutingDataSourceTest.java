@@ -0,0 +1,128 @@
+package io.github.krongdev.routemate.core.routing;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatementRoutingDataSourceTest {
+
+    private DataSource writeDataSource;
+    private DataSource readDataSource;
+    private Connection writeConnection;
+    private Connection readConnection;
+    private DataSourceRouter router;
+    private StatementRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        writeDataSource = mock(DataSource.class);
+        readDataSource = mock(DataSource.class);
+        writeConnection = mock(Connection.class);
+        readConnection = mock(Connection.class);
+        when(writeDataSource.getConnection()).thenReturn(writeConnection);
+        when(readDataSource.getConnection()).thenReturn(readConnection);
+        when(writeConnection.getAutoCommit()).thenReturn(true);
+        when(readConnection.createStatement()).thenAnswer(invocation -> mock(Statement.class));
+        when(writeConnection.createStatement()).thenAnswer(invocation -> mock(Statement.class));
+
+        router = new DataSourceRouter(writeDataSource, new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", readDataSource));
+        dataSource = new StatementRoutingDataSource(router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SessionConsistency.reset();
+    }
+
+    @Test
+    void testSelectsOutsideTransactionsUseReplica() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("SELECT * FROM users");
+            connection.prepareStatement("SELECT * FROM orders");
+        }
+
+        verify(readConnection).prepareStatement("SELECT * FROM users");
+        verify(readConnection).prepareStatement("SELECT * FROM orders");
+        verify(readConnection).close();
+        verify(writeDataSource, never()).getConnection();
+    }
+
+    @Test
+    void testReadsFollowWritesOnWrite() throws SQLException {
+        router.setReadYourWritesWindow(Duration.ofSeconds(5));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("SELECT * FROM users WHERE id = 1 FOR UPDATE");
+            connection.prepareStatement("SELECT * FROM users");
+        }
+
+        verify(writeConnection).prepareStatement("SELECT * FROM users WHERE id = 1 FOR UPDATE");
+        verify(writeConnection).prepareStatement("SELECT * FROM users");
+        verify(writeConnection).close();
+        verify(readDataSource, never()).getConnection();
+        assertThat(SessionConsistency.getLastWriteMillis()).isPositive();
+    }
+
+    @Test
+    void testPlainStatementsAreRoutedAtExecution() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Statement statement = connection.createStatement();
+            statement.setFetchSize(50);
+            statement.executeQuery("SELECT * FROM users");
+            assertThat(statement.getConnection()).isSameAs(connection);
+
+            statement.executeUpdate("DELETE FROM sessions");
+        }
+
+        verify(readConnection).createStatement();
+        verify(writeConnection).createStatement();
+    }
+
+    @Test
+    void testStateChangesPinToWrite() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.prepareStatement("SELECT * FROM users");
+        }
+
+        verify(writeConnection).setAutoCommit(false);
+        verify(writeConnection).prepareStatement("SELECT * FROM users");
+        verify(readDataSource, never()).getConnection();
+    }
+
+    @Test
+    void testTransactionsAndExplicitLevelsBypassStatementRouting() throws SQLException {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.executeWithoutResult(status -> {
+            try {
+                DataSourceUtils.getConnection(dataSource).prepareStatement("SELECT * FROM users");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(writeConnection).prepareStatement("SELECT * FROM users");
+
+        try (RoutingContext.ContextToken ignored = RoutingContext.use(RoutingContext.WRITE);
+                Connection connection = dataSource.getConnection()) {
+            assertThat(connection).isSameAs(writeConnection);
+        }
+        verify(readDataSource, never()).getConnection();
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.krongdev.routemate.core.tx;
+
+import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import io.github.krongdev.routemate.core.routing.SessionConsistency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoutingTransactionListenerTest {
+
+    private DataSource writeDataSource;
+    private DataSource readDataSource;
+    private TransactionTemplate template;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        writeDataSource = mock(DataSource.class);
+        readDataSource = mock(DataSource.class);
+        when(writeDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(readDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+
+        DataSourceRouter router = new DataSourceRouter(writeDataSource, new RoundRobinLoadBalancer());
+        router.setReadDataSources(Map.of("read1", readDataSource));
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(router);
+        RoutingTransactionListener listener = new RoutingTransactionListener();
+        listener.setRecordWrites(true);
+        transactionManager.addListener(listener);
+        template = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SessionConsistency.reset();
+    }
+
+    @Test
+    void testReadOnlyTemplateRoutesToRead() throws SQLException {
+        template.setReadOnly(true);
+
+        assertEquals(RoutingContext.READ, template.execute(status -> RoutingContext.get()));
+
+        verify(readDataSource, times(1)).getConnection();
+        assertNull(RoutingContext.get());
+        assertEquals(0, SessionConsistency.getLastWriteMillis());
+    }
+
+    @Test
+    void testReadWriteTemplateRoutesToWrite() throws SQLException {
+        assertEquals(RoutingContext.WRITE, template.execute(status -> RoutingContext.get()));
+
+        verify(writeDataSource, times(1)).getConnection();
+        assertNull(RoutingContext.get());
+        assertTrue(SessionConsistency.getLastWriteMillis() > 0);
+    }
+
+    @Test
+    void testNestedRequiresNewRestoresOuterLevel() {
+        TransactionTemplate inner = new TransactionTemplate(template.getTransactionManager());
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        inner.setReadOnly(true);
+
+        String outerAfterInner = template.execute(status -> {
+            assertEquals(RoutingContext.READ, inner.execute(s -> RoutingContext.get()));
+            return RoutingContext.get();
+        });
+
+        assertEquals(RoutingContext.WRITE, outerAfterInner);
+        assertNull(RoutingContext.get());
+    }
+
+    @Test
+    void testWritesRecordedOnOuterCommitOnly() {
+        TransactionTemplate inner = new TransactionTemplate(template.getTransactionManager());
+
+        template.execute(status -> {
+            inner.execute(s -> RoutingContext.get());
+            // The joined inner transaction has not committed anything yet
+            assertEquals(0, SessionConsistency.getLastWriteMillis());
+            return null;
+        });
+
+        assertTrue(SessionConsistency.getLastWriteMillis() > 0);
+    }
+
+    @Test
+    void testRecordOnlyModeLeavesRoutingAlone() {
+        DataSourceTransactionManager transactionManager =
+                new DataSourceTransactionManager(((DataSourceTransactionManager) template.getTransactionManager())
+                        .getDataSource());
+        RoutingTransactionListener recorder = new RoutingTransactionListener();
+        recorder.setRouteTransactions(false);
+        recorder.setRecordWrites(true);
+        transactionManager.addListener(recorder);
+        TransactionTemplate recording = new TransactionTemplate(transactionManager);
+
+        assertNull(recording.execute(status -> RoutingContext.get()));
+        assertTrue(SessionConsistency.getLastWriteMillis() > 0);
+
+        SessionConsistency.reset();
+        recording.setReadOnly(true);
+        recording.execute(status -> null);
+        assertEquals(0, SessionConsistency.getLastWriteMillis());
+    }
+
+    @Test
+    void testRollbackPopsLevel() {
+        template.setReadOnly(true);
+
+        assertThrows(IllegalStateException.class, () -> template.execute(status -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertNull(RoutingContext.get());
+    }
+}
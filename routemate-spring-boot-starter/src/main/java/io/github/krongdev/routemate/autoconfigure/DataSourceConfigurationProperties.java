@@ -1,5 +1,9 @@
 package io.github.krongdev.routemate.autoconfigure;
 
+import io.github.krongdev.routemate.core.health.PassiveFailureDetector;
+import io.github.krongdev.routemate.core.routing.ReplicaDrainer;
+import io.github.krongdev.routemate.core.routing.SlowStart;
+import io.github.krongdev.routemate.core.routing.SqlClassifier;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -19,6 +23,7 @@ public class DataSourceConfigurationProperties {
     private RoutingProperties routing = new RoutingProperties();
 
     private HealthCheckProperties healthCheck = new HealthCheckProperties();
+    private ManagementProperties management = new ManagementProperties();
     private PoolProperties poolTemplate;
 
     @Setter
@@ -29,6 +34,16 @@ public class DataSourceConfigurationProperties {
         private String password;
         private String driverClassName;
         private int weight = 1;
+        /**
+         * Availability zone of the replica. Replicas outside routing.local-zone
+         * are only used when the local ones are unhealthy or saturated.
+         */
+        private String zone;
+        /**
+         * Explicit routing tier; lower is preferred. Overrides the tier derived
+         * from zone.
+         */
+        private Integer tier;
         private PoolProperties pool = new PoolProperties();
 
     }
@@ -50,6 +65,102 @@ public class DataSourceConfigurationProperties {
         private List<String> readDatasources;
         private String writeDatasource;
         private String loadBalanceStrategy = "round-robin";
+        /**
+         * Zone this application runs in. Enables zone-aware routing when
+         * replicas declare a zone.
+         */
+        private String localZone;
+        /**
+         * How transactions are routed: aspect (around @Transactional methods) or
+         * transaction-listener (inside the transaction manager, also covers
+         * programmatic transactions).
+         */
+        private String integration = "aspect";
+        /**
+         * Expose the router through a lazy connection proxy, deferring replica
+         * selection and pool checkout until the first statement.
+         */
+        private boolean lazyConnection = false;
+        /**
+         * Register a TaskDecorator that carries the routing context into
+         * {@code @Async} and other Spring-managed executor tasks.
+         */
+        private boolean propagateContext = true;
+        private Duration poolStatsSampleInterval = Duration.ofMillis(100);
+        private Duration ewmaDecayTime = Duration.ofSeconds(10);
+        private ConsistencyProperties consistency = new ConsistencyProperties();
+        private FailoverProperties failover = new FailoverProperties();
+        private StatementRoutingProperties statementRouting = new StatementRoutingProperties();
+        private SlowStartProperties slowStart = new SlowStartProperties();
+
+    }
+
+    @Setter
+    @Getter
+    public static class SlowStartProperties {
+        /**
+         * Prefill the pool of replicas added at runtime to minimum-idle, and
+         * ramp up the share of reads of added or recovered replicas.
+         */
+        private boolean enabled = false;
+        private Duration window = SlowStart.DEFAULT_WINDOW;
+        /**
+         * Ramp shape: linear or exponential.
+         */
+        private String curve = "linear";
+
+    }
+
+    @Setter
+    @Getter
+    public static class StatementRoutingProperties {
+        /**
+         * Outside transactions, route each statement on its own: plain SELECTs
+         * to a replica, everything else to WRITE. Works with or without
+         * lazy-connection.
+         */
+        private boolean enabled = false;
+        /**
+         * Number of distinct SQL strings whose classification is cached.
+         */
+        private int cacheSize = SqlClassifier.DEFAULT_CACHE_SIZE;
+
+    }
+
+    @Setter
+    @Getter
+    public static class ConsistencyProperties {
+        /**
+         * Consistency mode: none or read-your-writes.
+         */
+        private String mode = "none";
+        private Duration window = Duration.ofSeconds(5);
+
+    }
+
+    @Setter
+    @Getter
+    public static class FailoverProperties {
+        /**
+         * Retry READ connection acquisition on other replicas, then WRITE. Off
+         * by default. When on, the connection-timeout of read pools is capped
+         * at deadline / (max-retries + 1), so every attempt fits the deadline.
+         */
+        private boolean enabled = false;
+        private int maxRetries = 2;
+        private Duration deadline = Duration.ofSeconds(2);
+
+    }
+
+    @Setter
+    @Getter
+    public static class ManagementProperties {
+        private boolean enabled = true;
+        /**
+         * How long a removed replica's in-flight work may keep its connections
+         * before the pool is closed anyway.
+         */
+        private Duration drainTimeout = ReplicaDrainer.DEFAULT_TIMEOUT;
 
     }
 
@@ -60,6 +171,46 @@ public class DataSourceConfigurationProperties {
         private Duration interval = Duration.ofSeconds(5);
         private Duration timeout = Duration.ofSeconds(2);
         private String validationQuery;
+        private ReplicationLagProperties replicationLag = new ReplicationLagProperties();
+        private PassiveProperties passive = new PassiveProperties();
+
+    }
+
+    @Setter
+    @Getter
+    public static class ReplicationLagProperties {
+        /**
+         * Lag probe: none, mysql, postgres or heartbeat.
+         */
+        private String probe = "none";
+        private Duration maxLag = Duration.ofSeconds(30);
+        private String heartbeatQuery;
+        /**
+         * Resolution of the heartbeat lag, covering the heartbeat interval.
+         */
+        private Duration heartbeatGranularity = Duration.ofSeconds(1);
+
+    }
+
+    @Setter
+    @Getter
+    public static class PassiveProperties {
+        /**
+         * Trip a per-replica circuit breaker on connectivity failures seen in
+         * application traffic. Off by default.
+         */
+        private boolean enabled = false;
+        /**
+         * Consecutive connectivity failures that open the breaker.
+         */
+        private int failureThreshold = PassiveFailureDetector.DEFAULT_FAILURE_THRESHOLD;
+        private Duration openDuration = Duration.ofSeconds(1);
+        private int halfOpenTrials = 3;
+        /**
+         * Also watch statement failures. Wraps every statement in a proxy, so
+         * off by default; connection failures are always watched.
+         */
+        private boolean statementFailures = false;
 
     }
 }
@@ -2,25 +2,54 @@ package io.github.krongdev.routemate.autoconfigure;
 
 import com.zaxxer.hikari.HikariDataSource;
 import io.github.krongdev.routemate.core.aop.RoutingAspect;
+import io.github.krongdev.routemate.core.balancer.ConsistentHashLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.LeastConnectionsLoadBalancer;
 import io.github.krongdev.routemate.core.balancer.LoadBalancer;
+import io.github.krongdev.routemate.core.balancer.PeakEwmaLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.PowerOfTwoChoicesLoadBalancer;
 import io.github.krongdev.routemate.core.balancer.RandomLoadBalancer;
 import io.github.krongdev.routemate.core.balancer.RoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.SmoothWeightedRoundRobinLoadBalancer;
+import io.github.krongdev.routemate.core.balancer.WeightedRandomLoadBalancer;
 import io.github.krongdev.routemate.core.balancer.WeightedRoundRobinLoadBalancer;
 import io.github.krongdev.routemate.core.health.DataSourceHealthChecker;
+import io.github.krongdev.routemate.core.health.HeartbeatTableLagProbe;
+import io.github.krongdev.routemate.core.health.MySqlReplicationLagProbe;
+import io.github.krongdev.routemate.core.health.PassiveFailureDetector;
+import io.github.krongdev.routemate.core.health.PostgresReplicationLagProbe;
+import io.github.krongdev.routemate.core.health.ReplicationLagProbe;
 import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.LazyRoutingDataSource;
+import io.github.krongdev.routemate.core.routing.RoutingTaskDecorator;
+import io.github.krongdev.routemate.core.routing.SlowStart;
+import io.github.krongdev.routemate.core.routing.SqlClassifier;
+import io.github.krongdev.routemate.core.routing.StatementRoutingDataSource;
+import io.github.krongdev.routemate.core.tx.RoutingTransactionListener;
 import io.github.krongdev.routemate.management.DataSourceManagementController;
 import io.github.krongdev.routemate.management.DataSourceManager;
+import io.github.krongdev.routemate.metrics.RoutemateMetrics;
+import io.github.krongdev.routemate.web.SessionConsistencyFilter;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
 
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import javax.sql.DataSource;
@@ -32,6 +61,10 @@ import java.util.Map;
 @ConditionalOnProperty(prefix = "routemate", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class RoutemateAutoConfiguration {
 
+    private static final Logger log = LoggerFactory.getLogger(RoutemateAutoConfiguration.class);
+
+    private static final long MIN_CONNECTION_TIMEOUT_MILLIS = 250;
+
     @Bean(name = "writeDataSource")
     @ConditionalOnMissingBean(name = "writeDataSource")
     public DataSource writeDataSource(DataSourceProperties properties) {
@@ -55,10 +88,41 @@ public class RoutemateAutoConfiguration {
             return new WeightedRoundRobinLoadBalancer(weights);
         }
 
+        if ("weighted-random".equalsIgnoreCase(strategy)) {
+            return new WeightedRandomLoadBalancer(readWeights(properties));
+        }
+
+        if ("consistent-hash".equalsIgnoreCase(strategy)) {
+            return new ConsistentHashLoadBalancer(readWeights(properties));
+        }
+
+        if ("smooth-weighted-round-robin".equalsIgnoreCase(strategy)) {
+            return new SmoothWeightedRoundRobinLoadBalancer(readWeights(properties));
+        }
+
+        if ("least-connections".equalsIgnoreCase(strategy)) {
+            return new LeastConnectionsLoadBalancer(properties.getRouting().getPoolStatsSampleInterval());
+        }
+
+        if ("peak-ewma".equalsIgnoreCase(strategy)) {
+            return new PeakEwmaLoadBalancer(properties.getRouting().getEwmaDecayTime());
+        }
+
+        if ("power-of-two-choices".equalsIgnoreCase(strategy)) {
+            return new PowerOfTwoChoicesLoadBalancer();
+        }
+
         return new RoundRobinLoadBalancer();
     }
 
+    private static Map<String, Integer> readWeights(DataSourceConfigurationProperties properties) {
+        Map<String, Integer> weights = new HashMap<>();
+        properties.getReads().forEach((key, props) -> weights.put(key, props.getWeight()));
+        return weights;
+    }
+
     @Bean
+    @ConditionalOnProperty(prefix = "routemate.routing", name = "integration", havingValue = "aspect", matchIfMissing = true)
     public RoutingAspect routingAspect() {
         return new RoutingAspect();
     }
@@ -66,10 +130,17 @@ public class RoutemateAutoConfiguration {
     @Bean
     @Primary
     @ConditionalOnMissingBean(DataSourceRouter.class)
+    @Conditional(NoFrontDataSourceCondition.class)
     public DataSourceRouter routemateDataSource(
             @Qualifier("writeDataSource") @org.springframework.context.annotation.Lazy DataSource writeDataSource,
             DataSourceConfigurationProperties properties,
             LoadBalancer loadBalancer) {
+        return createRouter(writeDataSource, properties, loadBalancer);
+    }
+
+    private static DataSourceRouter createRouter(DataSource writeDataSource,
+            DataSourceConfigurationProperties properties,
+            LoadBalancer loadBalancer) {
 
         // 1. Wrap the existing Write DataSource
         DataSourceRouter router = new DataSourceRouter(writeDataSource, loadBalancer);
@@ -88,7 +159,7 @@ public class RoutemateAutoConfiguration {
             if (props.getPool() != null) {
                 ds.setMaximumPoolSize(props.getPool().getMaximumPoolSize());
                 ds.setMinimumIdle(props.getPool().getMinimumIdle());
-                ds.setConnectionTimeout(props.getPool().getConnectionTimeout());
+                ds.setConnectionTimeout(readConnectionTimeout(props.getPool().getConnectionTimeout(), properties));
                 ds.setIdleTimeout(props.getPool().getIdleTimeout());
                 ds.setMaxLifetime(props.getPool().getMaxLifetime());
             }
@@ -102,24 +173,236 @@ public class RoutemateAutoConfiguration {
         properties.getReads().forEach((k, v) -> initialWeights.put(k, v.getWeight()));
         router.updateWeights(initialWeights);
 
+        Map<String, Integer> tiers = replicaTiers(properties);
+        if (!tiers.isEmpty()) {
+            router.updateTiers(tiers);
+        }
+
+        if (isReadYourWrites(properties)) {
+            router.setReadYourWritesWindow(properties.getRouting().getConsistency().getWindow());
+        }
+
+        DataSourceConfigurationProperties.FailoverProperties failover = properties.getRouting().getFailover();
+        if (failover.isEnabled()) {
+            router.setFailover(failover.getMaxRetries(), failover.getDeadline());
+        }
+
+        router.setDrainTimeout(properties.getManagement().getDrainTimeout());
+
+        DataSourceConfigurationProperties.SlowStartProperties slowStart = properties.getRouting().getSlowStart();
+        if (slowStart.isEnabled()) {
+            SlowStart.Curve curve = "exponential".equalsIgnoreCase(slowStart.getCurve())
+                    ? SlowStart.Curve.EXPONENTIAL
+                    : SlowStart.Curve.LINEAR;
+            router.setSlowStart(new SlowStart(slowStart.getWindow(), curve));
+        }
+
         return router;
     }
 
+    /**
+     * Tier 0 for replicas in the local zone (or without a zone), tier 1 for
+     * the rest, unless a replica sets its tier explicitly. Empty when no
+     * replica declares a zone or tier.
+     */
+    private static Map<String, Integer> replicaTiers(DataSourceConfigurationProperties properties) {
+        String localZone = properties.getRouting().getLocalZone();
+        Map<String, Integer> tiers = new HashMap<>();
+        properties.getReads().forEach((key, props) -> {
+            if (props.getTier() != null) {
+                tiers.put(key, props.getTier());
+            } else if (localZone != null && props.getZone() != null) {
+                tiers.put(key, localZone.equalsIgnoreCase(props.getZone()) ? 0 : 1);
+            }
+        });
+        return tiers;
+    }
+
+    /**
+     * Opt-in modes: the primary DataSource is a lazy proxy over the router, so
+     * routing and the physical connection wait for the first statement, and/or
+     * a statement-routing DataSource that routes auto-commit statements on
+     * their own. The router keeps its bean name.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Conditional(FrontDataSourceCondition.class)
+    static class FrontDataSourceConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(DataSourceRouter.class)
+        public DataSourceRouter routemateDataSource(
+                @Qualifier("writeDataSource") @org.springframework.context.annotation.Lazy DataSource writeDataSource,
+                DataSourceConfigurationProperties properties,
+                LoadBalancer loadBalancer) {
+            return createRouter(writeDataSource, properties, loadBalancer);
+        }
+
+        @Bean
+        @Primary
+        @ConditionalOnMissingBean(name = "routematePrimaryDataSource")
+        public DataSource routematePrimaryDataSource(DataSourceRouter router,
+                DataSourceConfigurationProperties properties) {
+            DataSourceConfigurationProperties.StatementRoutingProperties statementRouting = properties.getRouting()
+                    .getStatementRouting();
+            StatementRoutingDataSource statementRoutingDataSource = statementRouting.isEnabled()
+                    ? new StatementRoutingDataSource(router, new SqlClassifier(statementRouting.getCacheSize()))
+                    : null;
+            if (!properties.getRouting().isLazyConnection()) {
+                return statementRoutingDataSource;
+            }
+            return statementRoutingDataSource != null
+                    ? new LazyRoutingDataSource(router, statementRoutingDataSource)
+                    : new LazyRoutingDataSource(router);
+        }
+    }
+
+    /**
+     * Matches when the router sits behind a lazy proxy, statement routing, or both.
+     */
+    static class FrontDataSourceCondition extends AnyNestedCondition {
+
+        FrontDataSourceCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing", name = "lazy-connection", havingValue = "true")
+        static class LazyConnection {
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing.statement-routing", name = "enabled", havingValue = "true")
+        static class StatementRouting {
+        }
+    }
+
+    /**
+     * Matches when the router itself is the primary DataSource.
+     */
+    static class NoFrontDataSourceCondition extends NoneNestedConditions {
+
+        NoFrontDataSourceCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing", name = "lazy-connection", havingValue = "true")
+        static class LazyConnection {
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing.statement-routing", name = "enabled", havingValue = "true")
+        static class StatementRouting {
+        }
+    }
+
+    /**
+     * Matches when the aspect routes and read-your-writes needs committed writes recorded.
+     */
+    static class AspectReadYourWritesCondition extends AllNestedConditions {
+
+        AspectReadYourWritesCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing", name = "integration", havingValue = "aspect",
+                matchIfMissing = true)
+        static class Aspect {
+        }
+
+        @ConditionalOnProperty(prefix = "routemate.routing.consistency", name = "mode",
+                havingValue = "read-your-writes")
+        static class ReadYourWrites {
+        }
+    }
+
+    /**
+     * Caps a read pool's connection timeout so that, with failover on, the
+     * first attempt and every retry fit within the failover deadline instead
+     * of the first one waiting out the full pool timeout.
+     */
+    private static long readConnectionTimeout(long configured,
+            DataSourceConfigurationProperties properties) {
+        DataSourceConfigurationProperties.FailoverProperties failover = properties.getRouting().getFailover();
+        if (!failover.isEnabled()) {
+            return configured;
+        }
+        long perAttempt = failover.getDeadline().toMillis() / (Math.max(0, failover.getMaxRetries()) + 1);
+        // HikariCP rejects connection timeouts below 250 ms
+        long cap = Math.max(MIN_CONNECTION_TIMEOUT_MILLIS, perAttempt);
+        if (configured <= 0 || configured > cap) {
+            log.info("Capping read pool connection-timeout at {} ms to fit the failover deadline", cap);
+            return cap;
+        }
+        return configured;
+    }
+
+    private static boolean isReadYourWrites(DataSourceConfigurationProperties properties) {
+        return "read-your-writes".equalsIgnoreCase(properties.getRouting().getConsistency().getMode());
+    }
+
+    /**
+     * Picked up by Spring Boot's task executor, so {@code @Async} methods keep
+     * the caller's routing.
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    @ConditionalOnProperty(prefix = "routemate.routing", name = "propagate-context", havingValue = "true", matchIfMissing = true)
+    public RoutingTaskDecorator routingTaskDecorator() {
+        return new RoutingTaskDecorator();
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "routemate.health-check", name = "enabled", havingValue = "true", matchIfMissing = true)
     public DataSourceHealthChecker dataSourceHealthChecker(
             DataSourceRouter router,
             DataSourceConfigurationProperties properties) {
 
+        DataSourceConfigurationProperties.ReplicationLagProperties lag = properties.getHealthCheck()
+                .getReplicationLag();
+        ReplicationLagProbe lagProbe = replicationLagProbe(lag);
+        if (lagProbe != null) {
+            router.setMaxReplicationLag(lag.getMaxLag());
+        }
+
         DataSourceHealthChecker checker = new DataSourceHealthChecker(
                 router,
                 properties.getHealthCheck().getInterval(),
                 properties.getHealthCheck().getTimeout(),
-                properties.getHealthCheck().getValidationQuery());
+                properties.getHealthCheck().getValidationQuery(),
+                lagProbe);
         // checker.start() removed; handled by SmartLifecycle
         return checker;
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "routemate.health-check.passive", name = "enabled", havingValue = "true")
+    public PassiveFailureDetector passiveFailureDetector(
+            DataSourceRouter router,
+            DataSourceConfigurationProperties properties) {
+
+        DataSourceConfigurationProperties.PassiveProperties passive = properties.getHealthCheck().getPassive();
+        PassiveFailureDetector detector = new PassiveFailureDetector(
+                router,
+                passive.getFailureThreshold(),
+                passive.getOpenDuration(),
+                passive.getHalfOpenTrials());
+        router.setPassiveFailureDetector(detector);
+        router.setReportStatementFailures(passive.isStatementFailures());
+        return detector;
+    }
+
+    private static ReplicationLagProbe replicationLagProbe(
+            DataSourceConfigurationProperties.ReplicationLagProperties lag) {
+        String probe = lag.getProbe();
+        if ("mysql".equalsIgnoreCase(probe)) {
+            return new MySqlReplicationLagProbe();
+        }
+        if ("postgres".equalsIgnoreCase(probe) || "postgresql".equalsIgnoreCase(probe)) {
+            return new PostgresReplicationLagProbe();
+        }
+        if ("heartbeat".equalsIgnoreCase(probe)) {
+            return new HeartbeatTableLagProbe(lag.getHeartbeatQuery(), lag.getHeartbeatGranularity());
+        }
+        return null;
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "routemate.management", name = "enabled", havingValue = "true", matchIfMissing = true)
     public DataSourceManager dataSourceManager(
@@ -142,6 +425,18 @@ public class RoutemateAutoConfiguration {
             template = new DataSourceConfigurationProperties.PoolProperties();
         }
 
+        long connectionTimeout = readConnectionTimeout(template.getConnectionTimeout(), properties);
+        if (connectionTimeout != template.getConnectionTimeout()) {
+            // Copy, so the configured properties keep their value
+            DataSourceConfigurationProperties.PoolProperties capped = new DataSourceConfigurationProperties.PoolProperties();
+            capped.setMaximumPoolSize(template.getMaximumPoolSize());
+            capped.setMinimumIdle(template.getMinimumIdle());
+            capped.setConnectionTimeout(connectionTimeout);
+            capped.setIdleTimeout(template.getIdleTimeout());
+            capped.setMaxLifetime(template.getMaxLifetime());
+            template = capped;
+        }
+
         return new DataSourceManager(router, template);
     }
 
@@ -152,4 +447,72 @@ public class RoutemateAutoConfiguration {
             DataSourceManager manager) {
         return new DataSourceManagementController(manager);
     }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "org.springframework.web.filter.OncePerRequestFilter")
+    @ConditionalOnProperty(prefix = "routemate.routing.consistency", name = "mode", havingValue = "read-your-writes")
+    static class SessionConsistencyConfiguration {
+
+        @Bean
+        public SessionConsistencyFilter sessionConsistencyFilter() {
+            return new SessionConsistencyFilter();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "routemate.metrics", name = "enabled", havingValue = "true")
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RoutemateMetrics routemateMetrics(DataSourceRouter router) {
+            return new RoutemateMetrics(router);
+        }
+    }
+
+    /**
+     * The aspect returns from a joined inner method before the outer
+     * transaction commits, so writes are recorded by a transaction listener
+     * that leaves routing to the aspect.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Conditional(AspectReadYourWritesCondition.class)
+    static class WriteRecordingConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RoutingTransactionListener routingTransactionListener() {
+            RoutingTransactionListener listener = new RoutingTransactionListener();
+            listener.setRouteTransactions(false);
+            listener.setRecordWrites(true);
+            return listener;
+        }
+
+        @Bean
+        static RoutingTransactionListenerRegistrar routingTransactionListenerRegistrar(
+                ObjectProvider<RoutingTransactionListener> listener) {
+            return new RoutingTransactionListenerRegistrar(listener);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "routemate.routing", name = "integration", havingValue = "transaction-listener")
+    static class TransactionListenerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RoutingTransactionListener routingTransactionListener(DataSourceConfigurationProperties properties) {
+            RoutingTransactionListener listener = new RoutingTransactionListener();
+            listener.setRecordWrites(isReadYourWrites(properties));
+            return listener;
+        }
+
+        @Bean
+        static RoutingTransactionListenerRegistrar routingTransactionListenerRegistrar(
+                ObjectProvider<RoutingTransactionListener> listener) {
+            return new RoutingTransactionListenerRegistrar(listener);
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package io.github.krongdev.routemate.autoconfigure;
+
+import io.github.krongdev.routemate.core.tx.RoutingTransactionListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.transaction.ConfigurableTransactionManager;
+
+/**
+ * Adds the {@link RoutingTransactionListener} to every transaction manager in
+ * the context, including ones not created by Spring Boot.
+ */
+class RoutingTransactionListenerRegistrar implements BeanPostProcessor {
+
+    private final ObjectProvider<RoutingTransactionListener> listener;
+
+    RoutingTransactionListenerRegistrar(ObjectProvider<RoutingTransactionListener> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ConfigurableTransactionManager transactionManager) {
+            RoutingTransactionListener routingListener = listener.getIfAvailable();
+            if (routingListener != null
+                    && !transactionManager.getTransactionExecutionListeners().contains(routingListener)) {
+                transactionManager.addListener(routingListener);
+            }
+        }
+        return bean;
+    }
+}
@@ -1,10 +1,14 @@
 package io.github.krongdev.routemate.management;
 
+import io.github.krongdev.routemate.core.routing.ReplicaDrainer;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Instant;
+import java.util.List;
+
 @RestController
 @RequestMapping("/routemate/api/datasources")
 public class DataSourceManagementController {
@@ -28,10 +32,25 @@ public class DataSourceManagementController {
 
     @DeleteMapping("/{key}")
     public ResponseEntity<String> removeDataSource(@PathVariable String key) {
-        manager.removeReadDataSource(key);
+        ReplicaDrainer.Drain drain = manager.removeReadDataSource(key);
+        if (drain != null && drain.getState() == ReplicaDrainer.State.DRAINING) {
+            return ResponseEntity.accepted().body("DataSource removed, draining "
+                    + drain.getActiveConnections() + " active connections");
+        }
         return ResponseEntity.ok("DataSource removed successfully");
     }
 
+    @GetMapping("/drains")
+    public List<DrainStatus> getDrains() {
+        return manager.getDrains().stream().map(DrainStatus::new).toList();
+    }
+
+    @GetMapping("/drains/{key}")
+    public ResponseEntity<DrainStatus> getDrain(@PathVariable String key) {
+        ReplicaDrainer.Drain drain = manager.getDrain(key);
+        return drain == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(new DrainStatus(drain));
+    }
+
     @Setter
     @Getter
     public static class AddDataSourceRequest {
@@ -42,4 +61,21 @@ public class DataSourceManagementController {
         private int weight = 1;
 
     }
+
+    @Getter
+    public static class DrainStatus {
+        private final String key;
+        private final ReplicaDrainer.State state;
+        private final int activeConnections;
+        private final Instant startedAt;
+        private final Instant deadline;
+
+        DrainStatus(ReplicaDrainer.Drain drain) {
+            this.key = drain.getKey();
+            this.state = drain.getState();
+            this.activeConnections = drain.getActiveConnections();
+            this.startedAt = drain.getStartedAt();
+            this.deadline = drain.getDeadline();
+        }
+    }
 }
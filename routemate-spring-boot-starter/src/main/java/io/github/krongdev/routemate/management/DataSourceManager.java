@@ -3,12 +3,14 @@ package io.github.krongdev.routemate.management;
 import com.zaxxer.hikari.HikariDataSource;
 import io.github.krongdev.routemate.autoconfigure.DataSourceConfigurationProperties.PoolProperties;
 import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.ReplicaDrainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service to manage dynamic DataSource operations.
@@ -56,8 +58,8 @@ public class DataSourceManager {
         ds.setMaxLifetime(poolTemplate.getMaxLifetime());
 
         // Essential validation before adding to rotation
-        try (Connection conn = ds.getConnection()) {
-            log.info("DataSource [{}] connection test successful.", key);
+        try {
+            prefill(key, ds);
         } catch (SQLException e) {
             log.error("Failed to validate new DataSource key={} url={} : {}", key, url, e.getMessage());
             ds.close();
@@ -73,39 +75,65 @@ public class DataSourceManager {
         }
     }
 
-    public void removeReadDataSource(String key) {
+    /**
+     * Opens a test connection. With slow start, opens minimum-idle connections
+     * at once, so the replica joins rotation with a filled pool instead of
+     * creating connections on the first requests.
+     */
+    private void prefill(String key, HikariDataSource ds) throws SQLException {
+        int connections = 1;
+        if (router.getSlowStart() != null) {
+            connections = Math.max(1, Math.min(ds.getMinimumIdle(), ds.getMaximumPoolSize()));
+        }
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(ds.getConnection());
+            }
+            log.info("DataSource [{}] connection test successful ({} connections open).", key, opened.size());
+        } finally {
+            for (Connection conn : opened) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Removes a read DataSource from routing and drains its pool: in-flight
+     * work keeps its connections until they are returned or the router's
+     * drain timeout passes, then the pool is closed.
+     *
+     * @return the drain, or null if no DataSource was registered under the key
+     */
+    public ReplicaDrainer.Drain removeReadDataSource(String key) {
         if (key == null || key.trim().isEmpty())
             throw new IllegalArgumentException("key must not be empty");
 
         log.warn("Removing Read DataSource: key=[{}]", key);
 
-        DataSource ds = router.getDataSource(key);
-        if (ds == null) {
-            log.warn("DataSource key=[{}] not found, nothing to remove.", key);
-            return;
-        }
-
         // Check if trying to remove WRITE (obsolete check if only readDataSources
         // managed, but safe)
         if ("WRITE".equals(key)) {
             throw new IllegalArgumentException("Cannot remove WRITE DataSource");
         }
 
-        router.removeReadDataSource(key);
-
-        if (ds instanceof HikariDataSource) {
-            log.info("Closing HikariDataSource for key={}", key);
-            ((HikariDataSource) ds).close();
-        } else {
-            // Try to close if it implements AutoCloseable (though DataSource interface
-            // doesn't extend it)
-            if (ds instanceof AutoCloseable) {
-                try {
-                    ((AutoCloseable) ds).close();
-                } catch (Exception e) {
-                    log.warn("Error closing DataSource [{}]", key, e);
-                }
-            }
+        if (router.getDataSource(key) == null) {
+            log.warn("DataSource key=[{}] not found, nothing to remove.", key);
+            return null;
         }
+
+        // The router owns closing the pool once it is drained
+        return router.removeReadDataSource(key);
+    }
+
+    /**
+     * Returns the current or last drain of each removed DataSource.
+     */
+    public List<ReplicaDrainer.Drain> getDrains() {
+        return router.getDrainer().getDrains();
+    }
+
+    public ReplicaDrainer.Drain getDrain(String key) {
+        return router.getDrainer().getDrain(key);
     }
 }
@@ -0,0 +1,173 @@
+package io.github.krongdev.routemate.metrics;
+
+import io.github.krongdev.routemate.core.routing.DataSourceRouter;
+import io.github.krongdev.routemate.core.routing.FallbackReason;
+import io.github.krongdev.routemate.core.routing.RoutingContext;
+import io.github.krongdev.routemate.core.routing.RoutingListener;
+import io.github.krongdev.routemate.core.routing.RoutingTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes Routemate routing decisions as Micrometer meters.
+ * <p>
+ * Meters for a DataSource key are registered when the key enters the routing
+ * table and removed when it leaves, so recording is a map lookup plus a
+ * counter or timer update, without locks or allocation.
+ * <ul>
+ * <li>{@code routemate.routing.selections} (key): replicas picked by the LoadBalancer</li>
+ * <li>{@code routemate.routing.fallbacks} (reason): READs routed to WRITE</li>
+ * <li>{@code routemate.balancer.selection}: time spent in the LoadBalancer</li>
+ * <li>{@code routemate.connection.acquire} (key): connection acquisition latency histogram</li>
+ * <li>{@code routemate.replicas.healthy}, {@code routemate.replica.healthy} (key): healthy replicas</li>
+ * <li>{@code routemate.health.transitions} (key, state): health changes</li>
+ * </ul>
+ */
+public class RoutemateMetrics implements MeterBinder, RoutingListener {
+
+    private final DataSourceRouter router;
+    private final Map<String, KeyMeters> keyMeters = new ConcurrentHashMap<>();
+    private final Map<FallbackReason, Counter> fallbacks = new EnumMap<>(FallbackReason.class);
+    private final AtomicReference<MeterRegistry> registry = new AtomicReference<>();
+    private volatile Timer selectionTimer;
+
+    public RoutemateMetrics(DataSourceRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Bound once; the registry Spring Boot hands out is already a composite
+        if (!this.registry.compareAndSet(null, registry)) {
+            return;
+        }
+
+        for (FallbackReason reason : FallbackReason.values()) {
+            fallbacks.put(reason, Counter.builder("routemate.routing.fallbacks")
+                    .description("READ requests routed to the WRITE DataSource")
+                    .tag("reason", reason.name().toLowerCase().replace('_', '-'))
+                    .register(registry));
+        }
+        selectionTimer = Timer.builder("routemate.balancer.selection")
+                .description("Time spent selecting a replica in the LoadBalancer")
+                .register(registry);
+        Gauge.builder("routemate.replicas.healthy", router, r -> r.getHealthyReplicas().size())
+                .description("Number of replicas in the default rotation")
+                .register(registry);
+
+        keyMeters.put(RoutingContext.WRITE, new KeyMeters(registry, RoutingContext.WRITE, false));
+        router.addRoutingListener(this);
+    }
+
+    @Override
+    public void routingTableChanged(RoutingTable table) {
+        MeterRegistry current = this.registry.get();
+        if (current == null) {
+            return;
+        }
+        Set<String> keys = table.getReadDataSources().keySet();
+        for (String key : keys) {
+            keyMeters.computeIfAbsent(key, k -> new KeyMeters(current, k, true));
+        }
+        for (String key : new HashSet<>(keyMeters.keySet())) {
+            if (!RoutingContext.WRITE.equals(key) && !keys.contains(key)) {
+                KeyMeters removed = keyMeters.remove(key);
+                if (removed != null) {
+                    removed.remove(current);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void replicaSelected(String key, long selectNanos) {
+        Timer timer = this.selectionTimer;
+        if (timer != null) {
+            timer.record(selectNanos, TimeUnit.NANOSECONDS);
+        }
+        KeyMeters meters = keyMeters.get(key);
+        if (meters != null) {
+            meters.selections.increment();
+        }
+    }
+
+    @Override
+    public void connectionAcquired(String key, long acquireNanos) {
+        KeyMeters meters = keyMeters.get(key);
+        if (meters != null) {
+            meters.acquire.record(acquireNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void fellBackToWrite(FallbackReason reason) {
+        Counter counter = fallbacks.get(reason);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void healthChanged(String key, boolean healthy) {
+        KeyMeters meters = keyMeters.get(key);
+        if (meters != null) {
+            (healthy ? meters.becameHealthy : meters.becameUnhealthy).increment();
+        }
+    }
+
+    private final class KeyMeters {
+        private final Counter selections;
+        private final Timer acquire;
+        private final Counter becameHealthy;
+        private final Counter becameUnhealthy;
+        private final Gauge healthy;
+
+        private KeyMeters(MeterRegistry registry, String key, boolean replica) {
+            this.selections = Counter.builder("routemate.routing.selections")
+                    .description("Replicas picked by the LoadBalancer")
+                    .tag("key", key)
+                    .register(registry);
+            this.acquire = Timer.builder("routemate.connection.acquire")
+                    .description("Time spent obtaining a connection from the routed DataSource")
+                    .tag("key", key)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.becameHealthy = transitions(registry, key, "healthy");
+            this.becameUnhealthy = transitions(registry, key, "unhealthy");
+            this.healthy = replica
+                    ? Gauge.builder("routemate.replica.healthy", router, r -> r.getRoutingTable().isUnhealthy(key) ? 0 : 1)
+                            .description("1 if the replica is marked healthy, 0 otherwise")
+                            .tag("key", key)
+                            .register(registry)
+                    : null;
+        }
+
+        private Counter transitions(MeterRegistry registry, String key, String state) {
+            return Counter.builder("routemate.health.transitions")
+                    .description("Health state changes of a replica")
+                    .tag("key", key)
+                    .tag("state", state)
+                    .register(registry);
+        }
+
+        private void remove(MeterRegistry registry) {
+            List<Meter> meters = healthy == null
+                    ? List.of(selections, acquire, becameHealthy, becameUnhealthy)
+                    : List.of(selections, acquire, becameHealthy, becameUnhealthy, healthy);
+            meters.forEach(registry::remove);
+        }
+    }
+}
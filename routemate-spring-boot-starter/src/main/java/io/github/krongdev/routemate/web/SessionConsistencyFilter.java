@@ -0,0 +1,29 @@
+package io.github.krongdev.routemate.web;
+
+import io.github.krongdev.routemate.core.routing.SessionConsistency;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Scopes read-your-writes tracking to a single HTTP request, so a write made by
+ * one request never pins reads of an unrelated request on the same worker
+ * thread to the master.
+ */
+public class SessionConsistencyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SessionConsistency.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SessionConsistency.reset();
+        }
+    }
+}